@@ -49,14 +49,253 @@ public interface BankingService implements Authenticator {
     void execute(Transaction transaction) throws ExecutionException;
 }
 
+// The note-handling hardware; called once per denomination of a committed
+// withdrawal.
+public interface NoteFeeder {
+    void feed(Note note, int count);
+}
+
+// Stock per currency is an immutable snapshot swapped with one CAS, so a
+// whole note mix is reserved atomically or not at all. The mix comes from a
+// bounded knapsack where notes from emptier cassettes cost more, which
+// drains cassettes evenly and postpones refills.
 class CashDispenser {
-    private final ConcurrentMap<Note, Integer> cashInventory;
+    private static final long NOTE_COST = 1_000;
+    private static final long EMPTY_PENALTY = 500;
+
+    private final ConcurrentMap<Currency, AtomicReference<Stock>> cashInventory;
+    private final NoteFeeder feeder;
+    private final int maxWithdrawal;
+
+    public CashDispenser(NoteFeeder feeder) {
+        this(feeder, 2_000);
+    }
 
-    public CashDispenser() {
+    public CashDispenser(NoteFeeder feeder, int maxWithdrawal) {
         this.cashInventory = new ConcurrentHashMap<>();
+        this.feeder = feeder;
+        this.maxWithdrawal = maxWithdrawal;
+    }
+
+    public void loadCassette(Note note, int count, int capacity) {
+        if (count < 0 || count > capacity) {
+            throw new IllegalArgumentException("Invalid cassette count");
+        }
+        final var stock = cashInventory.computeIfAbsent(
+            note.currency(),
+            c -> new AtomicReference<>(Stock.EMPTY)
+        );
+        stock.updateAndGet(current -> current.with(note, count, capacity));
     }
 
-    boolean dispenseCash(Money amount) {}
+    boolean dispenseCash(Money amount) {
+        final var reservation = reserve(amount);
+        reservation.ifPresent(this::dispense);
+        return reservation.isPresent();
+    }
+
+    public Optional<Reservation> reserve(Money amount) {
+        if (amount.decimal() != 0 || amount.whole() <= 0) {
+            return Optional.empty();
+        }
+        if (amount.whole() > maxWithdrawal) return Optional.empty();
+        final var stock = cashInventory.get(amount.currency());
+        if (stock == null) return Optional.empty();
+
+        while (true) {
+            final var current = stock.get();
+            final var mix = current.plan(amount.whole());
+            if (mix == null) return Optional.empty();
+            if (stock.compareAndSet(current, current.minus(mix))) {
+                return Optional.of(new Reservation(current.notes, mix));
+            }
+        }
+    }
+
+    // Commits a reservation by handing its mix to the feeder. The notes left
+    // the stock when they were reserved, so a reservation is either
+    // dispensed or released, exactly once.
+    public void dispense(Reservation reservation) {
+        reservation.settle();
+        for (var i = 0; i < reservation.notes().length; i++) {
+            final var count = reservation.counts()[i];
+            if (count > 0) feeder.feed(reservation.notes()[i], count);
+        }
+    }
+
+    public void release(Reservation reservation) {
+        reservation.settle();
+        final var currency = reservation.notes()[0].currency();
+        cashInventory.get(currency).updateAndGet(current ->
+            current.plus(reservation)
+        );
+    }
+
+    public static final class Reservation {
+        private final Note[] notes;
+        private final int[] counts;
+        private final AtomicBoolean settled;
+
+        private Reservation(Note[] notes, int[] counts) {
+            this.notes = notes;
+            this.counts = counts;
+            this.settled = new AtomicBoolean();
+        }
+
+        public Note[] notes() {
+            return notes;
+        }
+
+        public int[] counts() {
+            return counts;
+        }
+
+        private void settle() {
+            if (!settled.compareAndSet(false, true)) {
+                throw new IllegalStateException("Reservation already settled");
+            }
+        }
+
+        public Map<Note, Integer> asMap() {
+            final var mix = new LinkedHashMap<Note, Integer>();
+            for (var i = 0; i < notes.length; i++) {
+                if (counts[i] > 0) mix.put(notes[i], counts[i]);
+            }
+            return mix;
+        }
+    }
+
+    private static final class Stock {
+        private static final Stock EMPTY = new Stock(
+            new Note[0],
+            new int[0],
+            new int[0]
+        );
+
+        // Sorted by descending value.
+        private final Note[] notes;
+        private final int[] counts;
+        private final int[] capacities;
+
+        private Stock(Note[] notes, int[] counts, int[] capacities) {
+            this.notes = notes;
+            this.counts = counts;
+            this.capacities = capacities;
+        }
+
+        Stock with(Note note, int count, int capacity) {
+            var at = Arrays.asList(notes).indexOf(note);
+            var nextNotes = notes;
+            var nextCounts = counts.clone();
+            var nextCapacities = capacities.clone();
+            if (at < 0) {
+                at = notes.length;
+                nextNotes = Arrays.copyOf(notes, at + 1);
+                nextCounts = Arrays.copyOf(counts, at + 1);
+                nextCapacities = Arrays.copyOf(capacities, at + 1);
+                nextNotes[at] = note;
+            }
+            nextCounts[at] = count;
+            nextCapacities[at] = capacity;
+
+            final var order = new Integer[nextNotes.length];
+            for (var i = 0; i < order.length; i++) order[i] = i;
+            final var byValue = nextNotes;
+            Arrays.sort(order, (i, j) ->
+                Integer.compare(byValue[j].value(), byValue[i].value())
+            );
+            final var sortedNotes = new Note[order.length];
+            final var sortedCounts = new int[order.length];
+            final var sortedCapacities = new int[order.length];
+            for (var i = 0; i < order.length; i++) {
+                sortedNotes[i] = nextNotes[order[i]];
+                sortedCounts[i] = nextCounts[order[i]];
+                sortedCapacities[i] = nextCapacities[order[i]];
+            }
+            return new Stock(sortedNotes, sortedCounts, sortedCapacities);
+        }
+
+        Stock minus(int[] mix) {
+            final var next = counts.clone();
+            for (var i = 0; i < next.length; i++) next[i] -= mix[i];
+            return new Stock(notes, next, capacities);
+        }
+
+        Stock plus(Reservation reservation) {
+            final var next = counts.clone();
+            for (var i = 0; i < reservation.notes().length; i++) {
+                final var at = Arrays.asList(notes).indexOf(
+                    reservation.notes()[i]
+                );
+                if (at >= 0) next[at] += reservation.counts()[i];
+            }
+            return new Stock(notes, next, capacities);
+        }
+
+        // Bounded knapsack over amount / gcd(denominations), with each
+        // cassette's stock split into power-of-two bundles. Returns the
+        // cheapest exact mix, or null when the stock cannot make the amount.
+        int[] plan(int amount) {
+            var unit = 0;
+            for (var i = 0; i < notes.length; i++) {
+                if (counts[i] > 0) unit = gcd(unit, notes[i].value());
+            }
+            if (unit == 0 || amount % unit != 0) return null;
+            final var target = amount / unit;
+
+            final var bundleNote = new int[64 * notes.length];
+            final var bundleSize = new int[bundleNote.length];
+            var bundles = 0;
+            for (var i = 0; i < notes.length; i++) {
+                var left = Math.min(counts[i], amount / notes[i].value());
+                for (var size = 1; left > 0; size <<= 1) {
+                    final var take = Math.min(size, left);
+                    bundleNote[bundles] = i;
+                    bundleSize[bundles++] = take;
+                    left -= take;
+                }
+            }
+
+            final var cost = new long[target + 1];
+            Arrays.fill(cost, Long.MAX_VALUE);
+            cost[0] = 0;
+            final var taken = new boolean[bundles][];
+            for (var b = 0; b < bundles; b++) {
+                final var note = bundleNote[b];
+                final var units = bundleSize[b] * (notes[note].value() / unit);
+                final var bundleCost = bundleSize[b] * noteCost(note);
+                taken[b] = new boolean[target + 1];
+                for (var t = target; t >= units; t--) {
+                    final var before = cost[t - units];
+                    if (before == Long.MAX_VALUE) continue;
+                    if (before + bundleCost < cost[t]) {
+                        cost[t] = before + bundleCost;
+                        taken[b][t] = true;
+                    }
+                }
+            }
+            if (cost[target] == Long.MAX_VALUE) return null;
+
+            final var mix = new int[notes.length];
+            var t = target;
+            for (var b = bundles - 1; b >= 0 && t > 0; b--) {
+                if (!taken[b][t]) continue;
+                mix[bundleNote[b]] += bundleSize[b];
+                t -= bundleSize[b] * (notes[bundleNote[b]].value() / unit);
+            }
+            return mix;
+        }
+
+        private long noteCost(int note) {
+            final var capacity = Math.max(1, capacities[note]);
+            final var empty = capacity - Math.min(capacity, counts[note]);
+            return NOTE_COST + EMPTY_PENALTY * empty / capacity;
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
 }
 
 public record Note {
@@ -160,9 +399,23 @@ public class ATM implements OperationManager {
         authenticate(this.card, this.pin);
         final var tx = new WithdrawalTransaction(account, amount);
         bankingService.validAccount(this.card, account);
-        bankingService.execute(tx);
-        bankingService.recordTransaction(tx);
-        cashDispenser.dispense(amount);
+        final var reservation = cashDispenser.reserve(amount);
+        if (reservation.isEmpty()) {
+            return false;
+        }
+        try {
+            bankingService.execute(tx);
+        } catch (Exception ex) {
+            cashDispenser.release(reservation.get());
+            throw ex;
+        }
+        // The account is already debited, so the notes go out even if the
+        // ledger write fails; that failure still reaches the caller.
+        try {
+            bankingService.recordTransaction(tx);
+        } finally {
+            cashDispenser.dispense(reservation.get());
+        }
         return true;
     }
 
@@ -1,7 +1,40 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
 
 public class Room {
 
@@ -18,6 +51,14 @@ public class Room {
         this.rate = rate;
     }
 
+    public Type type() {
+        return type;
+    }
+
+    public Set<Feature> features() {
+        return features;
+    }
+
     public static enum Type {
         STANDARD,
         DELUXE,
@@ -31,10 +72,7 @@ public class System {
 
     private final ConcurrentSkipListSet<Reservation> reservations;
     private final ConcurrentMap<Guest.ID, Guest> guests;
-    private final ConcurrentMap<
-        Guest.ID,
-        ConcurrentSkipListSet<Reservation>
-    > historyByGuest;
+    private final GuestHistory history;
     private final Inventory inventory;
 
     public Guest newGuest(String name, String email, String phone) {
@@ -59,7 +97,7 @@ public class System {
         final var reservation = new Reservation(guest, room, checkin, checkout);
         synchronized (this) {
             reservations.add(reservation);
-            historyByGuest.get(guest).add(reservation);
+            history.recordReservation(reservation);
             reservation.room().status(Room.Status.BOOKED);
         }
 
@@ -67,10 +105,14 @@ public class System {
     }
 
     public void cancelReservation(Reservation reservation) {
-        if (reservation.status() != Reservation.Status.CONFIRMED) {
+        if (
+            !reservation.transition(
+                Reservation.Status.CONFIRMED,
+                Reservation.Status.CANCELLED
+            )
+        ) {
             throw new IllegalStateException("Reservation cannot be cancelled");
         }
-        reservation.status(Reservation.Status.CANCELLED);
         inventory.makeAvailable(
             reservation.room(),
             reservation.checkin(),
@@ -82,8 +124,38 @@ public class System {
         reservation.status(Reservation.Status.CHECKED_IN);
     }
 
+    // Only the caller that wins the transition records the stay, so a
+    // repeated or concurrent checkout cannot count it twice.
     public void checkOut(Reservation reservation) {
-        reservation.status(Reservation.Status.CHECKED_OUT);
+        while (true) {
+            final var current = reservation.status();
+            if (
+                current == Reservation.Status.CHECKED_OUT ||
+                current == Reservation.Status.CANCELLED
+            ) {
+                throw new IllegalStateException(
+                    "Reservation cannot be checked out"
+                );
+            }
+            if (
+                reservation.transition(current, Reservation.Status.CHECKED_OUT)
+            ) {
+                break;
+            }
+        }
+        history.recordCheckOut(reservation);
+    }
+
+    public GuestHistory.Page guestHistory(
+        Guest guest,
+        GuestHistory.Cursor cursor,
+        int pageSize
+    ) {
+        return history.page(guest.id(), cursor, pageSize);
+    }
+
+    public GuestHistory.Stats guestStats(Guest guest) {
+        return history.stats(guest.id());
     }
 
     public void takeRoomForMaintenance(Room room) {
@@ -91,13 +163,55 @@ public class System {
     }
 }
 
-public record Reservation(
-    Guest guest,
-    Room room,
-    LocalDate checkin,
-    LocalDate checkout,
-    Status status
-) {
+public final class Reservation {
+
+    private final Guest guest;
+    private final Room room;
+    private final LocalDate checkin;
+    private final LocalDate checkout;
+    private final AtomicReference<Status> status;
+
+    public Reservation(
+        Guest guest,
+        Room room,
+        LocalDate checkin,
+        LocalDate checkout
+    ) {
+        this.guest = guest;
+        this.room = room;
+        this.checkin = checkin;
+        this.checkout = checkout;
+        this.status = new AtomicReference<>(Status.CONFIRMED);
+    }
+
+    public Guest guest() {
+        return guest;
+    }
+
+    public Room room() {
+        return room;
+    }
+
+    public LocalDate checkin() {
+        return checkin;
+    }
+
+    public LocalDate checkout() {
+        return checkout;
+    }
+
+    public Status status() {
+        return status.get();
+    }
+
+    public void status(Status next) {
+        status.set(next);
+    }
+
+    public boolean transition(Status from, Status to) {
+        return status.compareAndSet(from, to);
+    }
+
     public static enum Status {
         CONFIRMED,
         CANCELLED,
@@ -108,19 +222,41 @@ public record Reservation(
 
 public class Inventory {
 
-    private final ConcurrentMap<
-        LocalDate,
-        ConcurrentSkipListSet<Room>
-    > availableRoomsByDate;
-    private LocalDate latestDateInAvailableRoomsByDate;
+    private final RoomCalendar calendar;
     private final ConcurrentSkipListSet<Room> allRooms;
     private final ConcurrentSkipListSet<Room> roomsInMaintenance;
 
+    private final List<Room> roomsByIndex = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<Room, Integer> indexByRoom =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<Room.Type, RoomBitmap> roomsByType =
+        new ConcurrentHashMap<>();
+    private final ConcurrentMap<Feature, RoomBitmap> roomsByFeature =
+        new ConcurrentHashMap<>();
+
+    // The calendar bits go last: lock-free searches resolve any set bit
+    // through roomsByIndex, so the room must be indexed before it shows.
     public synchronized void addRoom(Room room) {
-        allRooms.add(room);
-        for (var entry : availableRoomsByDate.entrySet()) {
-            entry.getValue().add(room);
+        if (allRooms.contains(room)) return;
+
+        final var index = roomsByIndex.size();
+        if (index >= calendar.maxRooms()) {
+            throw new IllegalStateException("Calendar is at room capacity");
+        }
+        roomsByIndex.add(room);
+        indexByRoom.put(room, index);
+        roomsByType.put(
+            room.type(),
+            withRoom(roomsByType.get(room.type()), index)
+        );
+        for (var feature : room.features()) {
+            roomsByFeature.put(
+                feature,
+                withRoom(roomsByFeature.get(feature), index)
+            );
         }
+        allRooms.add(room);
+        calendar.addRoom(index);
     }
 
     public synchronized void bookRoom(
@@ -131,13 +267,7 @@ public class Inventory {
         if (roomsInMaintenance.contains(room)) {
             throw new IllegalStateException("Room is under maintenance");
         }
-        for (
-            var currDate = checkin;
-            currDate.before(checkout);
-            currDate.plus(TimeUnit.DAYS)
-        ) {
-            availableRoomsByDate.get(currDate).remove(room);
-        }
+        calendar.book(indexOf(room), checkin, checkout);
     }
 
     public synchronized void makeAvailable(
@@ -145,54 +275,662 @@ public class Inventory {
         LocalDate checkin,
         LocalDate checkout
     ) {
-        if (!allRooms.contains(room)) {
-            throw new NoSuchElement("Room not found in inventory");
+        calendar.release(indexOf(room), checkin, checkout);
+    }
+
+    public synchronized void takeRoomForMaintenance(Room room) {
+        final var index = indexOf(room);
+        if (roomsInMaintenance.contains(room)) return;
+        calendar.retireRoom(index);
+        roomsInMaintenance.add(room);
+    }
+
+    public synchronized void extendInventory(LocalDate endDate) {
+        calendar.advanceTo(endDate.minusDays(calendar.horizonDays()));
+    }
+
+    public synchronized void pruneInventory(LocalDate startDate) {
+        calendar.advanceTo(startDate);
+    }
+
+    public RoomSearch.Page search(RoomSearch.Query query) {
+        var matches = calendar.availableBetween(
+            query.checkin(),
+            query.checkout()
+        );
+        if (query.type() != null && !matches.isEmpty()) {
+            matches = matches.and(
+                roomsByType.getOrDefault(query.type(), RoomBitmap.EMPTY)
+            );
         }
-        for (
-            var currDate = checkin;
-            currDate.before(checkout);
-            currDate.plus(TimeUnit.DAYS)
-        ) {
-            availableRoomsByDate.get(currDate).add(room);
+        for (var feature : query.features()) {
+            if (matches.isEmpty()) break;
+            matches = matches.and(
+                roomsByFeature.getOrDefault(feature, RoomBitmap.EMPTY)
+            );
         }
+
+        final var rooms = new ArrayList<Room>(query.pageSize());
+        var index = matches.nextSetBit(query.cursor());
+        while (index >= 0 && rooms.size() < query.pageSize()) {
+            rooms.add(roomsByIndex.get(index));
+            index = matches.nextSetBit(index + 1);
+        }
+        return new RoomSearch.Page(rooms, index);
     }
 
-    public synchronized void takeRoomForMaintenance(Room room) {
-        if (!allRooms.contains(room)) {
+    private int indexOf(Room room) {
+        final var index = indexByRoom.get(room);
+        if (index == null) {
             throw new NoSuchElement("Room not found in inventory");
         }
-        if (roomsInMaintenance.contains(room)) return;
-        for (var entry : availableRoomsByDate.entrySet()) {
-            entry.getValue().remove(room);
+        return index;
+    }
+
+    private static RoomBitmap withRoom(RoomBitmap bitmap, int index) {
+        final var copy = bitmap == null ? new RoomBitmap() : bitmap.copy();
+        copy.add(index);
+        return copy;
+    }
+}
+
+public final class RoomCalendar {
+
+    private static final VarHandle WORDS =
+        MethodHandles.byteBufferViewVarHandle(
+            long[].class,
+            ByteOrder.nativeOrder()
+        );
+
+    private final int horizonDays;
+    private final int maxRooms;
+    private final int wordsPerDay;
+    private final ByteBuffer bits;
+    // Held for writing while the window rotates so lock-free searches can
+    // tell they raced with a slot reset and rescan.
+    private final StampedLock rotation = new StampedLock();
+    private volatile long firstEpochDay;
+
+    public RoomCalendar(LocalDate firstDay, int horizonDays, int maxRooms) {
+        if (horizonDays <= 0 || maxRooms <= 0) {
+            throw new IllegalArgumentException("Invalid calendar dimensions");
         }
-        roomsInMaintenance.add(room);
+        this.horizonDays = horizonDays;
+        this.maxRooms = maxRooms;
+        this.wordsPerDay = (maxRooms + 63) >>> 6;
+        // One row per day slot plus a trailing row of rooms in service,
+        // used to reset slots as the window rotates over them.
+        this.bits = ByteBuffer.allocateDirect(
+            Math.multiplyExact(
+                Math.multiplyExact(horizonDays + 1, wordsPerDay),
+                Long.BYTES
+            )
+        ).order(ByteOrder.nativeOrder());
+        this.firstEpochDay = firstDay.toEpochDay();
     }
 
-    public synchronized void extendInventory(LocalDate endDate) {
-        for (
-            var currDate = latestDateInAvailableRoomsByDate;
-            currDate.before(endDate);
-            currDate.plus(TimeUnit.DAYS)
-        ) {
-            availableRoomsByDate.putIfAbsent(
-                currDate,
-                new ConcurrentSkipListSet<>()
+    public int horizonDays() {
+        return horizonDays;
+    }
+
+    public int maxRooms() {
+        return maxRooms;
+    }
+
+    public LocalDate firstDay() {
+        return LocalDate.ofEpochDay(firstEpochDay);
+    }
+
+    public LocalDate endDay() {
+        return LocalDate.ofEpochDay(firstEpochDay + horizonDays);
+    }
+
+    public void addRoom(int room) {
+        if (room < 0 || room >= maxRooms) {
+            throw new IllegalStateException("Calendar is at room capacity");
+        }
+        for (var row = 0; row <= horizonDays; row++) set(row, room);
+    }
+
+    public void retireRoom(int room) {
+        for (var row = 0; row <= horizonDays; row++) clear(row, room);
+    }
+
+    public void book(int room, LocalDate checkin, LocalDate checkout) {
+        final var from = checkin.toEpochDay();
+        final var to = checkout.toEpochDay();
+        checkWindow(from, to);
+        for (var day = from; day < to; day++) {
+            if (!isSet(slotOf(day), room)) {
+                throw new IllegalStateException("Room is not available");
+            }
+        }
+        for (var day = from; day < to; day++) clear(slotOf(day), room);
+    }
+
+    public void release(int room, LocalDate checkin, LocalDate checkout) {
+        if (!isSet(horizonDays, room)) return;
+        final var from = Math.max(checkin.toEpochDay(), firstEpochDay);
+        final var to = Math.min(
+            checkout.toEpochDay(),
+            firstEpochDay + horizonDays
+        );
+        for (var day = from; day < to; day++) set(slotOf(day), room);
+    }
+
+    public RoomBitmap availableBetween(LocalDate checkin, LocalDate checkout) {
+        final var from = checkin.toEpochDay();
+        final var to = checkout.toEpochDay();
+        final var stamp = rotation.tryOptimisticRead();
+        if (stamp != 0) {
+            final var available = scan(from, to);
+            if (rotation.validate(stamp)) return available;
+        }
+        final var readStamp = rotation.readLock();
+        try {
+            return scan(from, to);
+        } finally {
+            rotation.unlockRead(readStamp);
+        }
+    }
+
+    private RoomBitmap scan(long from, long to) {
+        checkWindow(from, to);
+        final var words = new long[wordsPerDay];
+        Arrays.fill(words, -1L);
+        for (var day = from; day < to; day++) {
+            final var base = slotOf(day) * wordsPerDay;
+            for (var word = 0; word < wordsPerDay; word++) {
+                words[word] &= word(base + word);
+            }
+        }
+        return RoomBitmap.fromWords(words);
+    }
+
+    public void advanceTo(LocalDate newFirstDay) {
+        final var oldFirst = firstEpochDay;
+        final var newFirst = newFirstDay.toEpochDay();
+        if (newFirst <= oldFirst) return;
+
+        final var stamp = rotation.writeLock();
+        try {
+            firstEpochDay = newFirst;
+            final var inService = horizonDays * wordsPerDay;
+            final var resetFrom = Math.max(oldFirst + horizonDays, newFirst);
+            for (var day = resetFrom; day < newFirst + horizonDays; day++) {
+                final var base = slotOf(day) * wordsPerDay;
+                for (var word = 0; word < wordsPerDay; word++) {
+                    WORDS.setRelease(
+                        bits,
+                        offset(base + word),
+                        word(inService + word)
+                    );
+                }
+            }
+        } finally {
+            rotation.unlockWrite(stamp);
+        }
+    }
+
+    private void checkWindow(long from, long to) {
+        if (from >= to) {
+            throw new IllegalArgumentException(
+                "Checkin must be before checkout"
+            );
+        }
+        if (from < firstEpochDay || to > firstEpochDay + horizonDays) {
+            throw new IllegalArgumentException(
+                "Dates outside inventory window"
             );
         }
-        latestDateInAvailableRoomsByDate = endDate;
     }
 
-    public synchronized void pruneInventory(LocalDate startDate) {
-        if (startDate.isAfter(latestDateInAvailableRoomsByDate)) {
-            availableRoomsByDate.clear();
-            return;
+    private int slotOf(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) horizonDays);
+    }
+
+    private boolean isSet(int row, int room) {
+        return (word(row * wordsPerDay + (room >>> 6)) & (1L << room)) != 0;
+    }
+
+    private void set(int row, int room) {
+        final var index = row * wordsPerDay + (room >>> 6);
+        WORDS.setRelease(bits, offset(index), word(index) | (1L << room));
+    }
+
+    private void clear(int row, int room) {
+        final var index = row * wordsPerDay + (room >>> 6);
+        WORDS.setRelease(bits, offset(index), word(index) & ~(1L << room));
+    }
+
+    private long word(int index) {
+        return (long) WORDS.getAcquire(bits, offset(index));
+    }
+
+    private static int offset(int index) {
+        return index * Long.BYTES;
+    }
+}
+
+public final class RoomSearch {
+
+    public record Query(
+        Room.Type type,
+        Set<Feature> features,
+        LocalDate checkin,
+        LocalDate checkout,
+        int cursor,
+        int pageSize
+    ) {
+        public Query {
+            if (!checkin.isBefore(checkout)) {
+                throw new IllegalArgumentException(
+                    "Checkin must be before checkout"
+                );
+            }
+            if (cursor < 0 || pageSize <= 0) {
+                throw new IllegalArgumentException("Invalid page request");
+            }
+            features = Set.copyOf(features);
+        }
+
+        public Query next(Page page) {
+            return new Query(
+                type,
+                features,
+                checkin,
+                checkout,
+                page.nextCursor(),
+                pageSize
+            );
+        }
+    }
+
+    public record Page(List<Room> rooms, int nextCursor) {
+        public boolean hasNext() {
+            return nextCursor >= 0;
+        }
+    }
+}
+
+public final class RoomBitmap {
+
+    public static final RoomBitmap EMPTY = new RoomBitmap();
+
+    private static final int ARRAY_CONTAINER_MAX = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+
+    private char[] keys;
+    private Object[] containers;
+    private int size;
+
+    public RoomBitmap() {
+        this(new char[4], new Object[4], 0);
+    }
+
+    private RoomBitmap(char[] keys, Object[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void add(int index) {
+        final var key = (char) (index >>> 16);
+        final var low = (char) index;
+        var pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            insertContainer(pos, key, new char[0]);
         }
-        for (var date : availableRoomsByDate.keySet()) {
-            if (date.isBefore(startDate)) {
-                availableRoomsByDate.remove(date);
+        containers[pos] = addTo(containers[pos], low);
+    }
+
+    public void remove(int index) {
+        final var pos = Arrays.binarySearch(
+            keys,
+            0,
+            size,
+            (char) (index >>> 16)
+        );
+        if (pos < 0) return;
+        final var container = removeFrom(containers[pos], (char) index);
+        if (cardinality(container) == 0) {
+            removeContainer(pos);
+        } else {
+            containers[pos] = container;
+        }
+    }
+
+    public RoomBitmap and(RoomBitmap other) {
+        final var result = new RoomBitmap(
+            new char[Math.min(size, other.size) + 1],
+            new Object[Math.min(size, other.size) + 1],
+            0
+        );
+        var i = 0;
+        var j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                final var container = and(containers[i], other.containers[j]);
+                if (cardinality(container) > 0) {
+                    result.keys[result.size] = keys[i];
+                    result.containers[result.size++] = container;
+                }
+                i++;
+                j++;
             }
         }
-        latestDateInAvailableRoomsByDate = startDate;
+        return result;
+    }
+
+    public int nextSetBit(int from) {
+        var pos = Arrays.binarySearch(keys, 0, size, (char) (from >>> 16));
+        var low = (int) (char) from;
+        if (pos < 0) {
+            pos = -pos - 1;
+            low = 0;
+        }
+        for (; pos < size; pos++, low = 0) {
+            final var next = nextSetBit(containers[pos], low);
+            if (next >= 0) return (keys[pos] << 16) | next;
+        }
+        return -1;
+    }
+
+    public static RoomBitmap fromWords(long[] words) {
+        final var bitmap = new RoomBitmap();
+        for (var chunk = 0; chunk * BITMAP_WORDS < words.length; chunk++) {
+            final var container = Arrays.copyOfRange(
+                words,
+                chunk * BITMAP_WORDS,
+                (chunk + 1) * BITMAP_WORDS
+            );
+            final var cardinality = cardinality(container);
+            if (cardinality == 0) continue;
+            bitmap.insertContainer(
+                bitmap.size,
+                (char) chunk,
+                cardinality <= ARRAY_CONTAINER_MAX
+                    ? toValues(container)
+                    : container
+            );
+        }
+        return bitmap;
+    }
+
+    public RoomBitmap copy() {
+        final var copied = new Object[containers.length];
+        for (var i = 0; i < size; i++) {
+            copied[i] = containers[i] instanceof char[] array
+                ? array.clone()
+                : ((long[]) containers[i]).clone();
+        }
+        return new RoomBitmap(keys.clone(), copied, size);
+    }
+
+    private void insertContainer(int pos, char key, Object container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        java.lang.System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+        java.lang.System.arraycopy(
+            containers,
+            pos,
+            containers,
+            pos + 1,
+            size - pos
+        );
+        keys[pos] = key;
+        containers[pos] = container;
+        size++;
+    }
+
+    private void removeContainer(int pos) {
+        java.lang.System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        java.lang.System.arraycopy(
+            containers,
+            pos + 1,
+            containers,
+            pos,
+            size - pos - 1
+        );
+        containers[--size] = null;
+    }
+
+    private static Object addTo(Object container, char low) {
+        if (container instanceof long[] words) {
+            words[low >>> 6] |= 1L << low;
+            return words;
+        }
+        final var values = (char[]) container;
+        final var pos = Arrays.binarySearch(values, low);
+        if (pos >= 0) return values;
+        if (values.length == ARRAY_CONTAINER_MAX) {
+            final var words = toWords(values);
+            words[low >>> 6] |= 1L << low;
+            return words;
+        }
+        final var insertAt = -pos - 1;
+        final var grown = new char[values.length + 1];
+        java.lang.System.arraycopy(values, 0, grown, 0, insertAt);
+        grown[insertAt] = low;
+        java.lang.System.arraycopy(
+            values,
+            insertAt,
+            grown,
+            insertAt + 1,
+            values.length - insertAt
+        );
+        return grown;
+    }
+
+    private static Object removeFrom(Object container, char low) {
+        if (container instanceof long[] words) {
+            words[low >>> 6] &= ~(1L << low);
+            return cardinality(words) <= ARRAY_CONTAINER_MAX
+                ? toValues(words)
+                : words;
+        }
+        final var values = (char[]) container;
+        final var pos = Arrays.binarySearch(values, low);
+        if (pos < 0) return values;
+        final var shrunk = new char[values.length - 1];
+        java.lang.System.arraycopy(values, 0, shrunk, 0, pos);
+        java.lang.System.arraycopy(
+            values,
+            pos + 1,
+            shrunk,
+            pos,
+            values.length - pos - 1
+        );
+        return shrunk;
+    }
+
+    private static Object and(Object left, Object right) {
+        if (left instanceof long[] l && right instanceof long[] r) {
+            final var words = new long[BITMAP_WORDS];
+            for (var i = 0; i < BITMAP_WORDS; i++) words[i] = l[i] & r[i];
+            return cardinality(words) <= ARRAY_CONTAINER_MAX
+                ? toValues(words)
+                : words;
+        }
+        if (left instanceof long[]) return and(right, left);
+
+        final var values = (char[]) left;
+        final var result = new char[values.length];
+        var n = 0;
+        if (right instanceof long[] words) {
+            for (var value : values) {
+                if ((words[value >>> 6] & (1L << value)) != 0) {
+                    result[n++] = value;
+                }
+            }
+        } else {
+            final var other = (char[]) right;
+            var i = 0;
+            var j = 0;
+            while (i < values.length && j < other.length) {
+                if (values[i] < other[j]) i++;
+                else if (values[i] > other[j]) j++;
+                else {
+                    result[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int nextSetBit(Object container, int from) {
+        if (container instanceof long[] words) {
+            var word = from >>> 6;
+            var bits = words[word] & (-1L << from);
+            while (true) {
+                if (bits != 0) {
+                    return (word << 6) + Long.numberOfTrailingZeros(bits);
+                }
+                if (++word == BITMAP_WORDS) return -1;
+                bits = words[word];
+            }
+        }
+        final var values = (char[]) container;
+        var pos = Arrays.binarySearch(values, (char) from);
+        if (pos < 0) pos = -pos - 1;
+        return pos < values.length ? values[pos] : -1;
+    }
+
+    private static int cardinality(Object container) {
+        if (container instanceof char[] values) return values.length;
+        var count = 0;
+        for (var word : (long[]) container) count += Long.bitCount(word);
+        return count;
+    }
+
+    private static long[] toWords(char[] values) {
+        final var words = new long[BITMAP_WORDS];
+        for (var value : values) words[value >>> 6] |= 1L << value;
+        return words;
+    }
+
+    private static char[] toValues(long[] words) {
+        final var values = new char[cardinality(words)];
+        var n = 0;
+        for (var i = 0; i < BITMAP_WORDS; i++) {
+            var bits = words[i];
+            while (bits != 0) {
+                values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return values;
+    }
+}
+
+public class GuestHistory {
+
+    private final ConcurrentMap<Guest.ID, Ledger> ledgers =
+        new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public void recordReservation(Reservation reservation) {
+        final var ledger = ledgers.computeIfAbsent(
+            reservation.guest().id(),
+            id -> new Ledger()
+        );
+        final var cursor = new Cursor(
+            reservation.checkin(),
+            sequence.incrementAndGet()
+        );
+        ledger.reservations.put(cursor, reservation);
+        ledger.reservationCount.increment();
+    }
+
+    public void recordCheckOut(Reservation reservation) {
+        final var ledger = ledgers.get(reservation.guest().id());
+        if (ledger == null) {
+            throw new IllegalArgumentException("Reservation not recorded");
+        }
+        final var nights = ChronoUnit.DAYS.between(
+            reservation.checkin(),
+            reservation.checkout()
+        );
+        ledger.nightsStayed.add(nights);
+        ledger.spend.accumulateAndGet(
+            reservation.room().rate().multiply(nights),
+            Money::plus
+        );
+    }
+
+    public Page page(Guest.ID guestId, Cursor after, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        final var ledger = ledgers.get(guestId);
+        if (ledger == null) return new Page(List.of(), null);
+
+        final var newestFirst = after == null
+            ? ledger.reservations.descendingMap()
+            : ledger.reservations.headMap(after, false).descendingMap();
+        final var reservations = new ArrayList<Reservation>(pageSize);
+        Cursor last = null;
+        for (var entry : newestFirst.entrySet()) {
+            if (reservations.size() == pageSize) {
+                return new Page(reservations, last);
+            }
+            reservations.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new Page(reservations, null);
+    }
+
+    public Stats stats(Guest.ID guestId) {
+        final var ledger = ledgers.get(guestId);
+        if (ledger == null) return new Stats(0, 0, Money.ZERO);
+        return new Stats(
+            ledger.reservationCount.sum(),
+            ledger.nightsStayed.sum(),
+            ledger.spend.get()
+        );
+    }
+
+    public record Cursor(LocalDate checkin, long sequence)
+        implements Comparable<Cursor> {
+        @Override
+        public int compareTo(Cursor other) {
+            final var byCheckin = checkin.compareTo(other.checkin);
+            return byCheckin != 0
+                ? byCheckin
+                : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public record Page(List<Reservation> reservations, Cursor next) {
+        public boolean hasNext() {
+            return next != null;
+        }
+    }
+
+    public record Stats(long reservations, long nightsStayed, Money spend) {}
+
+    private static class Ledger {
+
+        private final ConcurrentSkipListMap<Cursor, Reservation> reservations =
+            new ConcurrentSkipListMap<>();
+        private final LongAdder reservationCount = new LongAdder();
+        private final LongAdder nightsStayed = new LongAdder();
+        private final AtomicReference<Money> spend = new AtomicReference<>(
+            Money.ZERO
+        );
     }
 }
 
@@ -202,22 +940,24 @@ public record Guest(String name, String email, String phone) {
 
 public class PaymentProcessor {
 
+    private final SettlementPipeline settlementPipeline;
+
+    public PaymentProcessor(SettlementPipeline settlementPipeline) {
+        this.settlementPipeline = settlementPipeline;
+    }
+
+    public PaymentProcessor() {
+        this(new SettlementPipeline());
+    }
+
     public Invoice settlePayment(
         Reservation reservation,
         PaymentMethod paymentMethod
     ) {
-        final var totalAmount = calculateTotal(reservation);
-        final var issuedAt = Instant.now();
-        final var invoice = new Invoice(
-            reservation.guest(),
-            reservation,
-            totalAmount,
-            issuedAt,
-            paymentMethod
-        );
+        final var invoice = newInvoice(reservation, paymentMethod);
 
         try {
-            paymentMethod.charge(totalAmount);
+            paymentMethod.charge(invoice.totalAmount());
         } catch (PaymentException pe) {
             throw new IllegalStateException("Payment failed", pe);
         }
@@ -225,6 +965,28 @@ public class PaymentProcessor {
         return invoice;
     }
 
+    public CompletableFuture<Invoice> settlePaymentAsync(
+        Reservation reservation,
+        PaymentMethod paymentMethod
+    ) {
+        return settlementPipeline.submit(
+            newInvoice(reservation, paymentMethod)
+        );
+    }
+
+    private Invoice newInvoice(
+        Reservation reservation,
+        PaymentMethod paymentMethod
+    ) {
+        return new Invoice(
+            reservation.guest(),
+            reservation,
+            calculateTotal(reservation),
+            Instant.now(),
+            paymentMethod
+        );
+    }
+
     private Money calculateTotal(Reservation reservation) {
         final var days = ChronoUnit.DAYS.between(
             reservation.checkin(),
@@ -234,6 +996,235 @@ public class PaymentProcessor {
     }
 }
 
+public class SettlementPipeline implements AutoCloseable {
+
+    private final BlockingQueue<Settlement> pending;
+    private final int batchSize;
+    private final Duration chargeTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final ExecutorService dispatcher;
+    // Blocking gateway calls run here, never on the common pool, so a hung
+    // provider ties up at most gatewayThreads threads and can be interrupted.
+    private final ExecutorService gatewayCalls;
+    // One permit per settlement between dispatch and its result, so the
+    // dispatcher stalls when the gateway falls behind and the bounded
+    // pending queue fills up instead of the gateway's own queue.
+    private final Semaphore gatewaySlots;
+    private final ScheduledExecutorService retryScheduler;
+    private final Set<Settlement> inFlight;
+    private volatile boolean closed;
+
+    public SettlementPipeline(
+        int queueCapacity,
+        int batchSize,
+        Duration chargeTimeout,
+        int maxAttempts,
+        Duration retryBackoff,
+        int gatewayThreads
+    ) {
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.chargeTimeout = chargeTimeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.dispatcher = Executors.newSingleThreadExecutor();
+        this.gatewayCalls = Executors.newFixedThreadPool(gatewayThreads);
+        this.gatewaySlots = new Semaphore(Math.max(batchSize, gatewayThreads));
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor();
+        this.inFlight = ConcurrentHashMap.newKeySet();
+        dispatcher.execute(this::dispatch);
+    }
+
+    public SettlementPipeline() {
+        this(1024, 64, Duration.ofSeconds(5), 3, Duration.ofMillis(200), 4);
+    }
+
+    public CompletableFuture<Invoice> submit(Invoice invoice) {
+        final var settlement = new Settlement(
+            invoice,
+            UUID.randomUUID().toString(),
+            new CompletableFuture<>()
+        );
+        inFlight.add(settlement);
+        settlement.result().whenComplete((invoiceResult, error) ->
+            inFlight.remove(settlement)
+        );
+        if (closed) {
+            fail(settlement, new IllegalStateException("Pipeline is closed"));
+        } else if (!pending.offer(settlement)) {
+            fail(
+                settlement,
+                new IllegalStateException("Settlement queue is full")
+            );
+        }
+        return settlement.result();
+    }
+
+    // Queued, running and retrying settlements all fail rather than being
+    // left incomplete.
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.shutdownNow();
+        retryScheduler.shutdownNow();
+        gatewayCalls.shutdownNow();
+        for (var settlement : inFlight) {
+            fail(settlement, new IllegalStateException("Pipeline is closed"));
+        }
+    }
+
+    private void dispatch() {
+        final var batch = new ArrayList<Settlement>(batchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(pending.take());
+                pending.drainTo(batch, batchSize - 1);
+                final var byProvider = batch
+                    .stream()
+                    .collect(
+                        Collectors.groupingBy(settlement ->
+                            settlement.invoice().paymentMethod().provider()
+                        )
+                    );
+                // One gateway call per provider. Retries go out one
+                // settlement at a time, so a charge that keeps failing or
+                // timing out stops holding up the rest of its batch.
+                for (var providerBatch : byProvider.values()) {
+                    for (var settlement : providerBatch) {
+                        gatewaySlots.acquire();
+                        settlement.result().whenComplete((invoice, error) ->
+                            gatewaySlots.release()
+                        );
+                    }
+                    attempt(providerBatch, 1);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The timeout starts when the call starts running, not while it waits
+    // for a gateway thread, and cancels (interrupts) only this call.
+    private void attempt(List<Settlement> group, int attempt) {
+        final var charges = group
+            .stream()
+            .map(settlement ->
+                new PaymentMethod.Charge(
+                    settlement.invoice().paymentMethod(),
+                    settlement.invoice().totalAmount(),
+                    settlement.idempotencyKey()
+                )
+            )
+            .toList();
+        final var gateway = charges.get(0).method();
+        final var call = new FutureTask<List<PaymentException>>(() ->
+            gateway.chargeBatch(charges)
+        ) {
+            private volatile ScheduledFuture<?> timeout;
+
+            @Override
+            public void run() {
+                try {
+                    timeout = retryScheduler.schedule(
+                        () -> cancel(true),
+                        chargeTimeout.toMillis(),
+                        TimeUnit.MILLISECONDS
+                    );
+                } catch (RejectedExecutionException ree) {
+                    cancel(false);
+                    return;
+                }
+                super.run();
+            }
+
+            @Override
+            protected void done() {
+                if (timeout != null) timeout.cancel(false);
+                settle(group, attempt, this);
+            }
+        };
+        try {
+            gatewayCalls.execute(call);
+        } catch (RejectedExecutionException ree) {
+            for (var settlement : group) {
+                fail(
+                    settlement,
+                    new IllegalStateException("Pipeline is closed")
+                );
+            }
+        }
+    }
+
+    private void settle(
+        List<Settlement> group,
+        int attempt,
+        Future<List<PaymentException>> call
+    ) {
+        List<PaymentException> failures = null;
+        Exception callFailure = null;
+        try {
+            failures = call.get();
+        } catch (CancellationException ce) {
+            callFailure = new TimeoutException("Gateway call timed out");
+        } catch (ExecutionException ee) {
+            callFailure = ee.getCause() instanceof Exception e
+                ? e
+                : new PaymentException(ee.getCause().getMessage());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            for (var settlement : group) fail(settlement, ie);
+            return;
+        }
+        for (var i = 0; i < group.size(); i++) {
+            final var settlement = group.get(i);
+            final Exception failure = callFailure != null
+                ? callFailure
+                : failures.get(i);
+            if (failure == null) {
+                settlement.result().complete(settlement.invoice());
+            } else {
+                retryOrFail(settlement, attempt, failure);
+            }
+        }
+    }
+
+    private void retryOrFail(
+        Settlement settlement,
+        int attempt,
+        Exception failure
+    ) {
+        if (attempt >= maxAttempts || closed) {
+            fail(
+                settlement,
+                new IllegalStateException("Payment failed", failure)
+            );
+            return;
+        }
+        try {
+            retryScheduler.schedule(
+                () -> attempt(List.of(settlement), attempt + 1),
+                retryBackoff.toMillis() << (attempt - 1),
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException ree) {
+            fail(settlement, new IllegalStateException("Pipeline is closed"));
+        }
+    }
+
+    private static void fail(Settlement settlement, Exception cause) {
+        settlement.result().completeExceptionally(cause);
+    }
+
+    private record Settlement(
+        Invoice invoice,
+        String idempotencyKey,
+        CompletableFuture<Invoice> result
+    ) {}
+}
+
 public record Invoice(
     Guest guest,
     Reservation reservation,
@@ -243,7 +1234,40 @@ public record Invoice(
 ) {}
 
 public interface PaymentMethod {
-    void charge(Money amount);
+    void charge(Money amount) throws PaymentException;
+
+    default void charge(Money amount, String idempotencyKey)
+        throws PaymentException {
+        charge(amount);
+    }
+
+    default String provider() {
+        return getClass().getSimpleName();
+    }
+
+    // Charges a batch for this method's provider in one gateway call and
+    // returns each charge's failure, or null where it went through.
+    // Providers without a batch API fall back to one charge at a time.
+    default List<PaymentException> chargeBatch(List<Charge> charges) {
+        final var failures = new ArrayList<PaymentException>(charges.size());
+        for (var charge : charges) {
+            try {
+                charge
+                    .method()
+                    .charge(charge.amount(), charge.idempotencyKey());
+                failures.add(null);
+            } catch (PaymentException e) {
+                failures.add(e);
+            }
+        }
+        return failures;
+    }
+
+    record Charge(
+        PaymentMethod method,
+        Money amount,
+        String idempotencyKey
+    ) {}
 }
 
 public class CreditCardPayment implements PaymentMethod {
@@ -266,6 +1290,41 @@ public class BankTransferPayment implements PaymentMethod {
     public void charge(Money amount) throws PaymentException {}
 }
 
+public class StubPaymentMethod implements PaymentMethod {
+
+    private final String provider;
+    private final AtomicInteger failuresLeft;
+    private final Set<String> chargedKeys = ConcurrentHashMap.newKeySet();
+
+    public StubPaymentMethod(String provider, int failuresBeforeSuccess) {
+        this.provider = provider;
+        this.failuresLeft = new AtomicInteger(failuresBeforeSuccess);
+    }
+
+    @Override
+    public void charge(Money amount) throws PaymentException {
+        charge(amount, UUID.randomUUID().toString());
+    }
+
+    @Override
+    public void charge(Money amount, String idempotencyKey)
+        throws PaymentException {
+        if (failuresLeft.getAndDecrement() > 0) {
+            throw new PaymentException("Stubbed gateway failure");
+        }
+        chargedKeys.add(idempotencyKey);
+    }
+
+    @Override
+    public String provider() {
+        return provider;
+    }
+
+    public Set<String> chargedKeys() {
+        return Set.copyOf(chargedKeys);
+    }
+}
+
 public class PaymentException extends Exception {
 
     public PaymentException(String message) {
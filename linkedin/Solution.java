@@ -1,7 +1,27 @@
 import java.awt.List;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class UserManager {
 
@@ -12,36 +32,32 @@ public class UserManager {
 
 public abstract class User {
 
+    private final int id;
     private final String name;
     private final String uname;
 
-    protected abstract void receiveConnectionRequest(User sender);
+    public int id() {
+        return id;
+    }
 
-    protected abstract void acceptedConnectionRequest(User user);
+    protected abstract void receiveConnectionRequest(ConnectionRequest request);
 
-    protected abstract void removePendingConnectionRequest(User user);
+    protected abstract void acceptedConnectionRequest(User user);
 }
 
 public class LoggedInUser extends User {
 
     private final Profile profile;
-    private final ConcurrentSkipListSet<User> connections;
-
-    @Getter
-    private final ConcurrentSkipListSet<
-        PendingConnection
-    > pendingConnectionRequests;
+    private final ConnectionGraph connections = ConnectionGraph.getInstance();
 
     @Getter
     private final List<JobPost> jobPosts;
 
-    private final ConcurrentHashMap<User, List<Message>> threadsByUser;
+    private final ConversationStore conversations =
+        ConversationStore.getInstance();
     private final List<Notification> notifications;
 
     public LoggedInUser() {
-        this.pendingConnectionRequests = new ConcurrentSkipListSet<>(
-            (pc1, pc2) -> pc1.compareTo(pc2)
-        );
         this.jobPosts = Collections.synchronizedList(new ArrayList<>());
 
         final var pendingNotifications = NotificationsManager.getInstance().getNotifications(this);
@@ -62,55 +78,694 @@ public class LoggedInUser extends User {
 
     public boolean remove(Skill skill) {}
 
-    public void sendConnectionRequest(User user) {
-        user.receiveConnectionRequest(this);
+    public ConnectionRequest sendConnectionRequest(User user) {
+        return ConnectionRequests.getInstance().send(this, user);
     }
 
-    public synchronized void acceptConnectionRequest(User user) {
-        if (!pendingConnectionRequests.contains(user)) {
-            throw new IllegalStateException();
-        }
-        user.acceptedConnectionRequest(this);
-        user.removePendingConnectionRequest(this);
-        this.acceptedConnectionRequest(user);
-        this.receiveConnectionRequest(user);
+    public void acceptConnectionRequest(User user) {
+        ConnectionRequests.getInstance().accept(user, this);
+    }
+
+    public void declineConnectionRequest(User user) {
+        ConnectionRequests.getInstance().decline(user, this);
+    }
+
+    public Collection<ConnectionRequest> getPendingConnectionRequests() {
+        return ConnectionRequests.getInstance().pendingFor(this);
     }
 
     @Override
-    protected void receiveConnectionRequest(User user) {
-        pendingConnectionRequests.add(user);
+    protected void receiveConnectionRequest(ConnectionRequest request) {
+        NotificationManager.getInstance().newConnectionTo(this);
     }
 
     @Override
     protected void acceptedConnectionRequest(User user) {
-        connections.add(user);
+        ConnectionQueries.getInstance().invalidate(id());
     }
 
-    @Override
-    protected void removePendingConnectionRequest(User user) {
-        if (!pendingConnectionRequests.contains(user)) {
-            throw new IllegalStateException();
-        }
-        pendingConnectionRequests.remove(user);
+    public int degreeOfSeparation(User user) {
+        return ConnectionQueries.getInstance()
+            .degreeOfSeparation(id(), user.id(), 3);
+    }
+
+    public int[] mutualConnections(User user) {
+        return ConnectionQueries.getInstance()
+            .mutualConnections(id(), user.id());
+    }
+
+    public int[] peopleYouMayKnow(int limit) {
+        return ConnectionQueries.getInstance().peopleYouMayKnow(id(), limit);
+    }
+
+    public JobPost post(JobPost jobPost) {
+        jobPosts.add(jobPost);
+        JobIndex.getInstance().add(jobPost);
+        return jobPost;
+    }
+
+    public List<JobPost> searchJobs(String query, int limit) {
+        return JobIndex.getInstance().search(query, limit);
     }
 
-    public JobPost post(JobPost jobPost) {}
+    public List<JobPost> recommendedJobs(int limit) {
+        return JobIndex.getInstance().recommend(id(), profile, limit);
+    }
 
     public void send(Message message, User user) {
-        if (!connections.contains(user)) {
+        if (!connections.areConnected(id(), user.id())) {
             throw new IllegalStateException();
         }
+        conversations.append(id(), user.id(), message);
         user.receive(message, this);
-        this.receive(message, this);
     }
 
     @Override
     protected void receive(Message message, User user) {
-        if (!connections.contains(user)) {
+        if (!connections.areConnected(id(), user.id())) {
             throw new IllegalStateException();
         }
-        threadsByUser.computeIfAbsent(user, k -> new ArrayList<>())
-            .add(message);
+    }
+
+    public ConversationStore.Page conversationWith(
+        User user,
+        ConversationStore.Cursor after,
+        int limit
+    ) {
+        return conversations.read(id(), user.id(), after, limit);
+    }
+}
+
+public class ConnectionGraph {
+
+    private static class HOLDER {
+
+        private static final ConnectionGraph INSTANCE = new ConnectionGraph(
+            1 << 24,
+            Duration.ofMinutes(10)
+        );
+    }
+
+    public static ConnectionGraph getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private final int capacity;
+    private volatile CompressedAdjacency base;
+    // Edges added since the last compaction: a sorted int[] per member,
+    // replaced copy-on-write so readers never lock.
+    private final AtomicReferenceArray<int[]> recent;
+    private final AtomicInteger highestMember = new AtomicInteger(-1);
+    // Set after every overlay insert, cleared when compaction starts.
+    private final AtomicBoolean overlayChanged = new AtomicBoolean();
+    private final ScheduledExecutorService compactor;
+
+    public ConnectionGraph(int capacity, Duration compactionInterval) {
+        this.capacity = capacity;
+        this.base = CompressedAdjacency.EMPTY;
+        this.recent = new AtomicReferenceArray<>(capacity);
+        this.compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            final var thread = new Thread(task, "connection-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(
+            this::compact,
+            compactionInterval.toMillis(),
+            compactionInterval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public void connect(int a, int b) {
+        if (a == b) throw new IllegalArgumentException("Cannot self-connect");
+        addRecent(a, b);
+        addRecent(b, a);
+    }
+
+    public boolean areConnected(int a, int b) {
+        final var added = recent.get(a);
+        return (
+            (added != null && Arrays.binarySearch(added, b) >= 0) ||
+            base.contains(a, b)
+        );
+    }
+
+    public int degree(int member) {
+        final var added = recent.get(member);
+        return base.degree(member) + (added == null ? 0 : added.length);
+    }
+
+    public int[] connectionsOf(int member) {
+        return CompressedAdjacency.union(
+            base.neighbours(member),
+            recent.get(member)
+        );
+    }
+
+    public void forEachConnection(int member, IntConsumer action) {
+        base.forEach(member, action);
+        final var added = recent.get(member);
+        if (added != null) for (var other : added) action.accept(other);
+    }
+
+    private void addRecent(int member, int other) {
+        if (member < 0 || member >= capacity) {
+            throw new IllegalArgumentException("Member id out of range");
+        }
+        highestMember.accumulateAndGet(member, Math::max);
+        while (true) {
+            final var current = recent.get(member);
+            if (base.contains(member, other)) return;
+            final var length = current == null ? 0 : current.length;
+            final var at = current == null
+                ? -1
+                : Arrays.binarySearch(current, other);
+            if (at >= 0) return;
+            final var insertion = -at - 1;
+            final var next = new int[length + 1];
+            if (current != null) {
+                System.arraycopy(current, 0, next, 0, insertion);
+                System.arraycopy(
+                    current,
+                    insertion,
+                    next,
+                    insertion + 1,
+                    length - insertion
+                );
+            }
+            next[insertion] = other;
+            if (recent.compareAndSet(member, current, next)) {
+                overlayChanged.set(true);
+                return;
+            }
+        }
+    }
+
+    // Folds the overlay into a new compressed base, then drops from the
+    // overlay exactly the edges that made it in; edges added meanwhile stay.
+    private void compact() {
+        if (!overlayChanged.getAndSet(false)) return;
+        final var folded = new int[highestMember.get() + 1][];
+        for (var member = 0; member < folded.length; member++) {
+            folded[member] = recent.get(member);
+        }
+        base = CompressedAdjacency.merge(base, folded);
+        for (var member = 0; member < folded.length; member++) {
+            final var snapshot = folded[member];
+            if (snapshot == null) continue;
+            while (true) {
+                final var current = recent.get(member);
+                final var remaining = without(current, snapshot);
+                if (recent.compareAndSet(member, current, remaining)) break;
+            }
+        }
+    }
+
+    private static int[] without(int[] current, int[] removed) {
+        final var kept = new int[current.length];
+        var n = 0;
+        for (var other : current) {
+            if (Arrays.binarySearch(removed, other) < 0) kept[n++] = other;
+        }
+        return n == 0 ? null : Arrays.copyOf(kept, n);
+    }
+}
+
+// Immutable compressed sparse rows. Each member's sorted neighbour list is
+// cut into blocks of BLOCK_SIZE: the first id of every block is stored in
+// full (so blocks can be binary searched) and the rest as varint deltas.
+// Deltas live in chunks of at most CHUNK_SIZE bytes, addressed by a long
+// position, and no block spans two chunks, so the graph is not capped by
+// the 2 GiB array limit.
+public final class CompressedAdjacency {
+
+    static final CompressedAdjacency EMPTY = new CompressedAdjacency(
+        new int[1],
+        new int[0],
+        new long[0],
+        new int[1],
+        new byte[0][]
+    );
+
+    private static final int BLOCK_SIZE = 16;
+    private static final int CHUNK_SHIFT = 24;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int MAX_BLOCK_BYTES = (BLOCK_SIZE - 1) * 5;
+
+    private final int[] firstBlock;
+    private final int[] blockHeads;
+    private final long[] blockData;
+    private final int[] degrees;
+    private final byte[][] deltas;
+
+    private CompressedAdjacency(
+        int[] firstBlock,
+        int[] blockHeads,
+        long[] blockData,
+        int[] degrees,
+        byte[][] deltas
+    ) {
+        this.firstBlock = firstBlock;
+        this.blockHeads = blockHeads;
+        this.blockData = blockData;
+        this.degrees = degrees;
+        this.deltas = deltas;
+    }
+
+    public int degree(int member) {
+        return member < degrees.length - 1 ? degrees[member] : 0;
+    }
+
+    public boolean contains(int member, int other) {
+        if (member >= degrees.length - 1) return false;
+        final var from = firstBlock[member];
+        final var to = firstBlock[member + 1];
+        if (from == to) return false;
+        final var found = Arrays.binarySearch(blockHeads, from, to, other);
+        if (found >= 0) return true;
+        final var block = -found - 2;
+        if (block < from) return false;
+
+        final var remaining = Math.min(
+            BLOCK_SIZE,
+            degrees[member] - (block - from) * BLOCK_SIZE
+        );
+        final var chunk = chunkOf(blockData[block]);
+        final var position = offsetOf(blockData[block]);
+        var current = blockHeads[block];
+        for (var i = 1; i < remaining && current < other; i++) {
+            current += readVarint(chunk, position);
+        }
+        return current == other;
+    }
+
+    public void forEach(int member, IntConsumer action) {
+        if (member >= degrees.length - 1) return;
+        var left = degrees[member];
+        for (
+            var block = firstBlock[member];
+            block < firstBlock[member + 1];
+            block++
+        ) {
+            final var chunk = chunkOf(blockData[block]);
+            final var position = offsetOf(blockData[block]);
+            var current = blockHeads[block];
+            action.accept(current);
+            for (var i = 1; i < Math.min(BLOCK_SIZE, left); i++) {
+                current += readVarint(chunk, position);
+                action.accept(current);
+            }
+            left -= BLOCK_SIZE;
+        }
+    }
+
+    static CompressedAdjacency merge(CompressedAdjacency base, int[][] added) {
+        final var members = Math.max(base.degrees.length - 1, added.length);
+        final var firstBlock = new int[members + 1];
+        final var degrees = new int[members + 1];
+        final var heads = new IntBuffer();
+        final var data = new LongBuffer();
+        final var deltas = new DeltaWriter();
+
+        for (var member = 0; member < members; member++) {
+            firstBlock[member] = heads.size;
+            final var neighbours = union(
+                base.neighbours(member),
+                member < added.length ? added[member] : null
+            );
+            degrees[member] = neighbours.length;
+            for (var i = 0; i < neighbours.length; i++) {
+                if (i % BLOCK_SIZE == 0) {
+                    heads.add(neighbours[i]);
+                    data.add(deltas.startBlock());
+                } else {
+                    deltas.writeVarint(neighbours[i] - neighbours[i - 1]);
+                }
+            }
+        }
+        firstBlock[members] = heads.size;
+        return new CompressedAdjacency(
+            firstBlock,
+            heads.toArray(),
+            data.toArray(),
+            degrees,
+            deltas.toChunks()
+        );
+    }
+
+    int[] neighbours(int member) {
+        final var neighbours = new int[degree(member)];
+        final var n = new int[1];
+        forEach(member, other -> neighbours[n[0]++] = other);
+        return neighbours;
+    }
+
+    static int[] union(int[] a, int[] b) {
+        if (b == null) return a;
+        final var merged = new int[a.length + b.length];
+        var i = 0;
+        var j = 0;
+        var n = 0;
+        while (i < a.length || j < b.length) {
+            final int next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) next = a[i++];
+            else if (i == a.length || b[j] < a[i]) next = b[j++];
+            else {
+                next = a[i++];
+                j++;
+            }
+            merged[n++] = next;
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private byte[] chunkOf(long position) {
+        return deltas[(int) (position >>> CHUNK_SHIFT)];
+    }
+
+    private static int[] offsetOf(long position) {
+        return new int[] { (int) (position & (CHUNK_SIZE - 1)) };
+    }
+
+    private static int readVarint(byte[] bytes, int[] position) {
+        var value = 0;
+        var shift = 0;
+        byte b;
+        do {
+            b = bytes[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static final class IntBuffer {
+
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class LongBuffer {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    // Appends varints into fixed-size chunks; only the chunk being filled
+    // is ever copied, so building needs little more than the final size.
+    private static final class DeltaWriter {
+
+        private final ArrayList<byte[]> chunks = new ArrayList<>();
+        private byte[] chunk = new byte[1024];
+        private int length;
+
+        // Position of the next block, which starts a new chunk if the
+        // block might not fit in what is left of the current one.
+        long startBlock() {
+            if (length + MAX_BLOCK_BYTES > CHUNK_SIZE) {
+                chunks.add(sealed());
+                chunk = new byte[1024];
+                length = 0;
+            }
+            return ((long) chunks.size() << CHUNK_SHIFT) | length;
+        }
+
+        void writeVarint(int value) {
+            if (length + 5 > chunk.length) {
+                chunk = Arrays.copyOf(
+                    chunk,
+                    Math.min(CHUNK_SIZE, chunk.length * 2)
+                );
+            }
+            while ((value & ~0x7F) != 0) {
+                chunk[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            chunk[length++] = (byte) value;
+        }
+
+        byte[][] toChunks() {
+            chunks.add(sealed());
+            return chunks.toArray(new byte[0][]);
+        }
+
+        private byte[] sealed() {
+            return length == chunk.length
+                ? chunk
+                : Arrays.copyOf(chunk, length);
+        }
+    }
+}
+
+// Size-bounded LRU with a time-to-live, striped so hot keys on different
+// stripes never share a lock. Expired entries are dropped when read and
+// the least recently used entry is evicted when a stripe is full.
+public final class ExpiringCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    private final long ttlMillis;
+    private final Stripe<K, V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public ExpiringCache(int maxEntries, Duration ttl) {
+        this.ttlMillis = ttl.toMillis();
+        this.stripes = new Stripe[STRIPES];
+        final var perStripe = Math.max(1, maxEntries / STRIPES);
+        for (var i = 0; i < STRIPES; i++) stripes[i] = new Stripe<>(perStripe);
+    }
+
+    public V get(K key) {
+        final var stripe = stripeOf(key);
+        synchronized (stripe) {
+            final var entry = stripe.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAt() <= System.currentTimeMillis()) {
+                stripe.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    public void put(K key, V value) {
+        final var expiresAt = System.currentTimeMillis() + ttlMillis;
+        final var stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.put(key, new Entry<>(value, expiresAt));
+        }
+    }
+
+    public void invalidate(K key) {
+        final var stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.remove(key);
+        }
+    }
+
+    private Stripe<K, V> stripeOf(K key) {
+        return stripes[Math.floorMod(key.hashCode() * 0x9E3779B9, STRIPES)];
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    private static final class Stripe<K, V>
+        extends LinkedHashMap<K, Entry<V>> {
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
+
+public class ConnectionQueries {
+
+    private static class HOLDER {
+
+        private static final ConnectionQueries INSTANCE = new ConnectionQueries(
+            ConnectionGraph.getInstance()
+        );
+    }
+
+    public static ConnectionQueries getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    public static final int NOT_CONNECTED = -1;
+
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int CACHED_SUGGESTIONS = 100;
+
+    private final ConnectionGraph graph;
+    private final ExpiringCache<Integer, int[]> suggestionsByUser;
+
+    public ConnectionQueries(ConnectionGraph graph) {
+        this(graph, 100_000, Duration.ofMinutes(15));
+    }
+
+    public ConnectionQueries(
+        ConnectionGraph graph,
+        int maxCachedUsers,
+        Duration suggestionTtl
+    ) {
+        this.graph = graph;
+        this.suggestionsByUser = new ExpiringCache<>(
+            maxCachedUsers,
+            suggestionTtl
+        );
+    }
+
+    // Degree of separation up to maxDegree (1 = connected, 2 = shared
+    // connection, ...), or NOT_CONNECTED. Always grows the smaller frontier.
+    public int degreeOfSeparation(int from, int to, int maxDegree) {
+        if (from == to) return 0;
+        final var forward = new Side(from);
+        final var backward = new Side(to);
+        for (var depth = 1; depth <= maxDegree; depth++) {
+            final var smaller = forward.cost() <= backward.cost()
+                ? forward
+                : backward;
+            final var other = smaller == forward ? backward : forward;
+            if (smaller.expand(other.visited)) return depth;
+            if (smaller.frontier.length == 0) return NOT_CONNECTED;
+        }
+        return NOT_CONNECTED;
+    }
+
+    public int[] mutualConnections(int a, int b) {
+        final var left = graph.connectionsOf(a);
+        final var right = graph.connectionsOf(b);
+        final var mutual = new int[Math.min(left.length, right.length)];
+        var i = 0;
+        var j = 0;
+        var n = 0;
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) i++;
+            else if (left[i] > right[j]) j++;
+            else {
+                mutual[n++] = left[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(mutual, n);
+    }
+
+    // Second-degree members ranked by number of mutual connections.
+    // Caches a fixed CACHED_SUGGESTIONS prefix; larger limits bypass it.
+    public int[] peopleYouMayKnow(int member, int limit) {
+        final var cacheable = limit <= CACHED_SUGGESTIONS;
+        final var cached = cacheable ? suggestionsByUser.get(member) : null;
+        if (cached != null) {
+            return Arrays.copyOf(cached, Math.min(limit, cached.length));
+        }
+
+        final var direct = graph.connectionsOf(member);
+        final var mutualCounts = new ConcurrentHashMap<Integer, Integer>();
+        stream(direct, direct.length).forEach(connection -> {
+            for (var candidate : graph.connectionsOf(connection)) {
+                if (
+                    candidate != member &&
+                    Arrays.binarySearch(direct, candidate) < 0
+                ) {
+                    mutualCounts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        });
+        final var ranked = mutualCounts
+            .entrySet()
+            .stream()
+            .sorted((e1, e2) -> {
+                final var byCount = Integer.compare(
+                    e2.getValue(),
+                    e1.getValue()
+                );
+                return byCount != 0
+                    ? byCount
+                    : Integer.compare(e1.getKey(), e2.getKey());
+            })
+            .limit(Math.max(limit, CACHED_SUGGESTIONS))
+            .mapToInt(e -> e.getKey())
+            .toArray();
+
+        if (cacheable) suggestionsByUser.put(member, ranked);
+        return Arrays.copyOf(ranked, Math.min(limit, ranked.length));
+    }
+
+    public void invalidate(int member) {
+        suggestionsByUser.invalidate(member);
+    }
+
+    private IntStream stream(int[] members, long work) {
+        final var stream = IntStream.of(members);
+        return work >= PARALLEL_THRESHOLD ? stream.parallel() : stream;
+    }
+
+    private final class Side {
+
+        private final BitSet visited = new BitSet();
+        private int[] frontier;
+
+        Side(int start) {
+            visited.set(start);
+            frontier = new int[] { start };
+        }
+
+        long cost() {
+            var cost = 0L;
+            for (var member : frontier) cost += graph.degree(member);
+            return cost;
+        }
+
+        // Visited sets are only read while neighbours are gathered (possibly
+        // in parallel) and only written afterwards on the calling thread.
+        boolean expand(BitSet target) {
+            final var reached = stream(frontier, cost())
+                .flatMap(member -> IntStream.of(graph.connectionsOf(member)))
+                .filter(member -> !visited.get(member))
+                .toArray();
+            final var next = new int[reached.length];
+            var n = 0;
+            for (var member : reached) {
+                if (target.get(member)) return true;
+                if (!visited.get(member)) {
+                    visited.set(member);
+                    next[n++] = member;
+                }
+            }
+            frontier = Arrays.copyOf(next, n);
+            return false;
+        }
     }
 }
 
@@ -118,6 +773,8 @@ public class Profile {
 
     private final List<Education> education;
     private final List<Experience> experience;
+
+    @Getter
     private final Set<Skill> skills;
 }
 
@@ -127,14 +784,208 @@ public class Experience {}
 
 public class Skill {
 
+    @Getter
     private final String name;
 }
 
+@Getter
 public class JobPost {
 
     private final String title;
     private final String description;
     private final User owner;
+    private final Set<Skill> skills;
+}
+
+// Postings are append-only and job ids increase, so each term's postings
+// stay sorted. Writers take the write lock; queries, including the parallel
+// skill scoring, run under the read lock.
+public class JobIndex {
+
+    private static class HOLDER {
+
+        private static final JobIndex INSTANCE = new JobIndex(
+            100_000,
+            Duration.ofMinutes(5)
+        );
+    }
+
+    public static JobIndex getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private static final int PARALLEL_THRESHOLD = 10_000;
+    private static final int CACHED_RECOMMENDATIONS = 50;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ArrayList<JobPost> jobs = new ArrayList<>();
+    private final ArrayList<BitSet> skillsByJob = new ArrayList<>();
+    private final HashMap<String, IntPostings> postingsByTerm = new HashMap<>();
+    private final HashMap<Integer, BitSet> jobsBySkill = new HashMap<>();
+    private final ConcurrentHashMap<String, Integer> skillIds =
+        new ConcurrentHashMap<>();
+    private final AtomicInteger nextSkillId = new AtomicInteger();
+
+    private final ExpiringCache<Integer, List<JobPost>> cache;
+
+    public JobIndex(int maxCachedUsers, Duration recommendationTtl) {
+        this.cache = new ExpiringCache<>(maxCachedUsers, recommendationTtl);
+    }
+
+    public int add(JobPost job) {
+        final var skills = skillBits(job.getSkills());
+        final var terms = new HashSet<String>(tokenize(job.getTitle()));
+        terms.addAll(tokenize(job.getDescription()));
+
+        lock.writeLock().lock();
+        try {
+            final var id = jobs.size();
+            jobs.add(job);
+            skillsByJob.add(skills);
+            for (var term : terms) {
+                postingsByTerm.computeIfAbsent(term, t -> new IntPostings())
+                    .add(id);
+            }
+            for (
+                var skill = skills.nextSetBit(0);
+                skill >= 0;
+                skill = skills.nextSetBit(skill + 1)
+            ) {
+                jobsBySkill.computeIfAbsent(skill, s -> new BitSet()).set(id);
+            }
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Jobs containing every query term, newest first.
+    public List<JobPost> search(String query, int limit) {
+        final var terms = new HashSet<String>(tokenize(query));
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            final var lists = new ArrayList<IntPostings>();
+            for (var term : terms) {
+                final var postings = postingsByTerm.get(term);
+                if (postings == null) return List.of();
+                lists.add(postings);
+            }
+            lists.sort((p1, p2) -> Integer.compare(p1.size, p2.size));
+
+            final var results = new ArrayList<JobPost>();
+            final var shortest = lists.get(0);
+            for (var i = shortest.size - 1; i >= 0; i--) {
+                final var id = shortest.ids[i];
+                var inAll = true;
+                for (var j = 1; j < lists.size() && inAll; j++) {
+                    inAll = lists.get(j).contains(id);
+                }
+                if (!inAll) continue;
+                results.add(jobs.get(id));
+                if (results.size() == limit) break;
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Jobs ranked by the share of their required skills the profile has.
+    // Caches a fixed CACHED_RECOMMENDATIONS prefix; larger limits bypass it.
+    public List<JobPost> recommend(int memberId, Profile profile, int limit) {
+        final var cacheable = limit <= CACHED_RECOMMENDATIONS;
+        final var cached = cacheable ? cache.get(memberId) : null;
+        if (cached != null) {
+            return cached.subList(0, Math.min(limit, cached.size()));
+        }
+
+        final var wanted = skillBits(profile.getSkills());
+        final List<JobPost> ranked;
+        lock.readLock().lock();
+        try {
+            final var candidates = new BitSet();
+            wanted
+                .stream()
+                .forEach(skill -> {
+                    final var jobIds = jobsBySkill.get(skill);
+                    if (jobIds != null) candidates.or(jobIds);
+                });
+            final var stream = candidates.cardinality() >= PARALLEL_THRESHOLD
+                ? candidates.stream().parallel()
+                : candidates.stream();
+            ranked = stream
+                .mapToObj(id ->
+                    new Scored(id, score(skillsByJob.get(id), wanted))
+                )
+                .sorted((s1, s2) -> {
+                    final var byScore = Double.compare(s2.score, s1.score);
+                    return byScore != 0
+                        ? byScore
+                        : Integer.compare(s2.id, s1.id);
+                })
+                .limit(Math.max(limit, CACHED_RECOMMENDATIONS))
+                .map(scored -> jobs.get(scored.id))
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (cacheable) cache.put(memberId, ranked);
+        return ranked.subList(0, Math.min(limit, ranked.size()));
+    }
+
+    private static double score(BitSet required, BitSet held) {
+        final var total = required.cardinality();
+        if (total == 0) return 0;
+        final var matched = (BitSet) required.clone();
+        matched.and(held);
+        return (double) matched.cardinality() / total;
+    }
+
+    private BitSet skillBits(Set<Skill> skills) {
+        final var bits = new BitSet();
+        if (skills == null) return bits;
+        for (var skill : skills) {
+            bits.set(
+                skillIds.computeIfAbsent(
+                    skill.getName().toLowerCase(Locale.ROOT),
+                    name -> nextSkillId.getAndIncrement()
+                )
+            );
+        }
+        return bits;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        final var tokens = new ArrayList<String>();
+        final var words = text
+            .toLowerCase(Locale.ROOT)
+            .split("[^\\p{L}\\p{N}]+");
+        for (var token : words) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private record Scored(int id, double score) {}
+
+    private static final class IntPostings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
 }
 
 public record Message {
@@ -142,11 +993,166 @@ public record Message {
     private final List<Attachment> attachments;
 }
 
+// One thread per pair of members, keyed by the pair in canonical order so
+// both participants share a single copy.
+public class ConversationStore {
+
+    private static class HOLDER {
+
+        private static final ConversationStore INSTANCE = new ConversationStore(
+            64
+        );
+    }
+
+    public static ConversationStore getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    public record Entry(
+        long sequence,
+        int senderId,
+        Message message,
+        long sentAt
+    ) {}
+
+    public record Cursor(long sequence) {
+        public static final Cursor START = new Cursor(-1);
+    }
+
+    public record Page(List<Entry> entries, Cursor next) {}
+
+    private final ConcurrentHashMap<Long, Conversation>[] shards;
+
+    @SuppressWarnings("unchecked")
+    public ConversationStore(int shardCount) {
+        this.shards = new ConcurrentHashMap[shardCount];
+        for (var i = 0; i < shardCount; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    public Entry append(int senderId, int recipientId, Message message) {
+        final var key = key(senderId, recipientId);
+        return shardOf(key)
+            .computeIfAbsent(key, k -> new Conversation())
+            .append(senderId, message);
+    }
+
+    public Page read(int a, int b, Cursor after, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit");
+        final var key = key(a, b);
+        final var conversation = shardOf(key).get(key);
+        if (conversation == null) return new Page(List.of(), after);
+        return conversation.read(after, limit);
+    }
+
+    public long size(int a, int b) {
+        final var key = key(a, b);
+        final var conversation = shardOf(key).get(key);
+        return conversation == null ? 0 : conversation.size;
+    }
+
+    static long key(int a, int b) {
+        if (a == b) throw new IllegalArgumentException("Same member");
+        final var low = Math.min(a, b);
+        final var high = Math.max(a, b);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    private ConcurrentHashMap<Long, Conversation> shardOf(long key) {
+        return shards[(int) Long.remainderUnsigned(
+            key ^ (key >>> 29),
+            shards.length
+        )];
+    }
+
+    // Appends are serialized per conversation, which is what gives each
+    // thread a single order; reads never lock and only see entries below
+    // the published size.
+    private static final class Conversation {
+
+        private static final int CHUNK_SHIFT = 6;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+        private volatile Entry[][] chunks = new Entry[1][];
+        private volatile long size;
+
+        synchronized Entry append(int senderId, Message message) {
+            final var sequence = size;
+            final var chunk = (int) (sequence >>> CHUNK_SHIFT);
+            var current = chunks;
+            if (chunk == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[chunk] == null) current[chunk] = new Entry[CHUNK_SIZE];
+            final var entry = new Entry(
+                sequence,
+                senderId,
+                message,
+                System.currentTimeMillis()
+            );
+            current[chunk][(int) (sequence & (CHUNK_SIZE - 1))] = entry;
+            chunks = current;
+            size = sequence + 1;
+            return entry;
+        }
+
+        Page read(Cursor after, int limit) {
+            final var end = size;
+            final var current = chunks;
+            final var from = after.sequence() + 1;
+            final var to = Math.min(end, from + limit);
+            final var entries = new ArrayList<Entry>();
+            for (var sequence = from; sequence < to; sequence++) {
+                final var chunk = current[(int) (sequence >>> CHUNK_SHIFT)];
+                entries.add(chunk[(int) (sequence & (CHUNK_SIZE - 1))]);
+            }
+            return new Page(
+                entries,
+                entries.isEmpty() ? after : new Cursor(to - 1)
+            );
+        }
+    }
+}
+
 public class Attachment {}
 
+// Producers only touch the recipient's inbox and never wait on delivery;
+// a dispatcher drains dirty inboxes in batches and hands listening users
+// one coalesced notification per kind.
 public class NotificationManager {
+
+    private static class HOLDER {
+
+        private static final NotificationManager INSTANCE =
+            new NotificationManager();
+    }
+
+    public static NotificationManager getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private static final int MAX_BATCH = 1024;
+
     private final ConcurrentMap<User, Boolean> listeners;
-    private final ConcurrentMap<User, List<Notification>> pendingNotificationsByUser;
+    private final ConcurrentMap<User, Inbox> inboxes;
+    private final LinkedBlockingQueue<Inbox> dirty;
+    private final int inboxCapacity;
+
+    public NotificationManager() {
+        this(64);
+    }
+
+    public NotificationManager(int inboxCapacity) {
+        this.listeners = new ConcurrentHashMap<>();
+        this.inboxes = new ConcurrentHashMap<>();
+        this.dirty = new LinkedBlockingQueue<>();
+        this.inboxCapacity = inboxCapacity;
+
+        final var dispatcher = new Thread(this::dispatch, "notifications");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
 
     public void newMessageTo(User user) {
         handleNotification(user, new MessageNotification());
@@ -157,27 +1163,311 @@ public class NotificationManager {
     }
 
     private void handleNotification(User user, Notification notification) {
-        if (listeners.containsKey(user)) {
-            user.addNotification(notification);
-        } else {
-            pendingNotificationsByUser.computeIfAbsent(user, k -> new ArrayList<>())
-                .add(notification);
+        final var inbox = inboxes.computeIfAbsent(
+            user,
+            u -> new Inbox(u, inboxCapacity)
+        );
+        inbox.record(notification);
+        if (listeners.containsKey(user) && inbox.markScheduled()) {
+            dirty.offer(inbox);
         }
     }
 
     public void addListener(User user) {
         listeners.put(user, true);
+        final var inbox = inboxes.get(user);
+        if (inbox != null && inbox.markScheduled()) dirty.offer(inbox);
+    }
+
+    public void removeListener(User user) {
+        listeners.remove(user);
     }
 
     public List<Notification> getPendingNotifications(User user) {
-        if (!pendingNotificationsByUser.containsKey(user)) {
-            return List.of();
+        final var inbox = inboxes.get(user);
+        return inbox == null ? List.of() : inbox.drain();
+    }
+
+    private void dispatch() {
+        final var batch = new ArrayList<Inbox>(MAX_BATCH);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(dirty.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            dirty.drainTo(batch, MAX_BATCH - 1);
+            for (var inbox : batch) {
+                if (!listeners.containsKey(inbox.user)) {
+                    inbox.unschedule();
+                    continue;
+                }
+                for (var notification : inbox.drain()) {
+                    inbox.user.addNotification(notification);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    // Keeps a count per notification kind and at most `capacity` of the
+    // newest notifications; anything older is folded into the count.
+    private static final class Inbox {
+
+        private final User user;
+        private final int capacity;
+        private final ArrayDeque<Notification> recent = new ArrayDeque<>();
+        private final Map<Class<?>, Integer> countsByKind = new HashMap<>();
+        private boolean scheduled;
+
+        Inbox(User user, int capacity) {
+            this.user = user;
+            this.capacity = capacity;
+        }
+
+        synchronized void record(Notification notification) {
+            if (recent.size() == capacity) recent.pollFirst();
+            recent.addLast(notification);
+            countsByKind.merge(notification.getClass(), 1, Integer::sum);
+        }
+
+        // True only for the caller that should queue this inbox for delivery.
+        synchronized boolean markScheduled() {
+            if (scheduled || countsByKind.isEmpty()) return false;
+            scheduled = true;
+            return true;
+        }
+
+        synchronized void unschedule() {
+            scheduled = false;
+        }
+
+        synchronized List<Notification> drain() {
+            final var latestByKind = new HashMap<Class<?>, Notification>();
+            for (var notification : recent) {
+                latestByKind.put(notification.getClass(), notification);
+            }
+            final var delivered = new ArrayList<Notification>();
+            countsByKind.forEach((kind, count) -> {
+                final var latest = latestByKind.get(kind);
+                delivered.add(
+                    count == 1 && latest != null
+                        ? latest
+                        : new CoalescedNotification(kind, count, latest)
+                );
+            });
+            recent.clear();
+            countsByKind.clear();
+            scheduled = false;
+            return delivered;
         }
-        return pendingNotificationsByUser.remove(user);
     }
 }
 
 public abstract class Notification {}
 
-public class MessageNotification {}
-public class ConnectionRequest {}
+public class MessageNotification extends Notification {}
+
+public class ConnectionNotification extends Notification {}
+
+// Stands in for `count` notifications of one kind, e.g. "5 new messages".
+public class CoalescedNotification extends Notification {
+
+    private final Class<?> kind;
+    private final int count;
+    private final Notification latest;
+
+    public CoalescedNotification(
+        Class<?> kind,
+        int count,
+        Notification latest
+    ) {
+        this.kind = kind;
+        this.count = count;
+        this.latest = latest;
+    }
+
+    public Class<?> getKind() {
+        return kind;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Notification getLatest() {
+        return latest;
+    }
+}
+// One record per pair of members, shared by both sides. Every transition out
+// of PENDING is a single CAS, so exactly one of a racing accept, decline or
+// withdraw wins and its side effects run once, without holding any monitor.
+public class ConnectionRequest {
+
+    public enum State {
+        PENDING,
+        ACCEPTED,
+        DECLINED,
+        WITHDRAWN,
+    }
+
+    private final User sender;
+    private final User recipient;
+    private final AtomicReference<State> state;
+
+    public ConnectionRequest(User sender, User recipient) {
+        this.sender = sender;
+        this.recipient = recipient;
+        this.state = new AtomicReference<>(State.PENDING);
+    }
+
+    public User getSender() {
+        return sender;
+    }
+
+    public User getRecipient() {
+        return recipient;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    boolean transition(State to) {
+        return state.compareAndSet(State.PENDING, to);
+    }
+}
+
+public class ConnectionRequests {
+
+    private static class HOLDER {
+
+        private static final ConnectionRequests INSTANCE =
+            new ConnectionRequests(ConnectionGraph.getInstance());
+    }
+
+    public static ConnectionRequests getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private final ConnectionGraph graph;
+    private final ConcurrentHashMap<Long, ConnectionRequest> requestsByPair;
+    private final ConcurrentHashMap<User, Set<ConnectionRequest>> pendingByUser;
+
+    public ConnectionRequests(ConnectionGraph graph) {
+        this.graph = graph;
+        this.requestsByPair = new ConcurrentHashMap<>();
+        this.pendingByUser = new ConcurrentHashMap<>();
+    }
+
+    // A request to someone who already asked us accepts theirs instead.
+    public ConnectionRequest send(User sender, User recipient) {
+        if (graph.areConnected(sender.id(), recipient.id())) {
+            throw new IllegalStateException("Already connected");
+        }
+        final var pair = ConversationStore.key(sender.id(), recipient.id());
+        while (true) {
+            final var created = new ConnectionRequest(sender, recipient);
+            final var existing = requestsByPair.putIfAbsent(pair, created);
+            if (existing == null) {
+                // tryComplete may have run before the add; undo it if so.
+                final var pending = pendingSet(recipient);
+                pending.add(created);
+                if (created.getState() != ConnectionRequest.State.PENDING) {
+                    pending.remove(created);
+                    return created;
+                }
+                recipient.receiveConnectionRequest(created);
+                return created;
+            }
+            if (existing.getState() == ConnectionRequest.State.ACCEPTED) {
+                throw new IllegalStateException("Already connected");
+            }
+            if (existing.getState() != ConnectionRequest.State.PENDING) {
+                requestsByPair.remove(pair, existing);
+                continue;
+            }
+            if (existing.getSender() == sender) return existing;
+            if (tryComplete(existing, ConnectionRequest.State.ACCEPTED)) {
+                return existing;
+            }
+        }
+    }
+
+    public void accept(User sender, User recipient) {
+        complete(
+            pendingRequest(sender, recipient),
+            ConnectionRequest.State.ACCEPTED
+        );
+    }
+
+    public void decline(User sender, User recipient) {
+        complete(
+            pendingRequest(sender, recipient),
+            ConnectionRequest.State.DECLINED
+        );
+    }
+
+    public void withdraw(User sender, User recipient) {
+        complete(
+            pendingRequest(sender, recipient),
+            ConnectionRequest.State.WITHDRAWN
+        );
+    }
+
+    public Collection<ConnectionRequest> pendingFor(User user) {
+        return Collections.unmodifiableSet(pendingSet(user));
+    }
+
+    private Set<ConnectionRequest> pendingSet(User user) {
+        return pendingByUser.computeIfAbsent(user, u ->
+            ConcurrentHashMap.newKeySet()
+        );
+    }
+
+    private ConnectionRequest pendingRequest(User sender, User recipient) {
+        final var request = requestsByPair.get(
+            ConversationStore.key(sender.id(), recipient.id())
+        );
+        if (
+            request == null ||
+            request.getSender() != sender ||
+            request.getState() != ConnectionRequest.State.PENDING
+        ) {
+            throw new IllegalStateException("No pending request");
+        }
+        return request;
+    }
+
+    private void complete(
+        ConnectionRequest request,
+        ConnectionRequest.State to
+    ) {
+        if (!tryComplete(request, to)) {
+            throw new IllegalStateException(
+                "Request already " + request.getState()
+            );
+        }
+    }
+
+    private boolean tryComplete(
+        ConnectionRequest request,
+        ConnectionRequest.State to
+    ) {
+        if (!request.transition(to)) return false;
+        final var sender = request.getSender();
+        final var recipient = request.getRecipient();
+        pendingSet(recipient).remove(request);
+        if (to == ConnectionRequest.State.ACCEPTED) {
+            graph.connect(sender.id(), recipient.id());
+            sender.acceptedConnectionRequest(recipient);
+            recipient.acceptedConnectionRequest(sender);
+        }
+        requestsByPair.remove(
+            ConversationStore.key(sender.id(), recipient.id()),
+            request
+        );
+        return true;
+    }
+}
@@ -27,14 +27,28 @@ public class User implements Observer {
 public class Item {
 
     private final ID id;
+    private final String category;
 
     public ID id() {
         return id;
     }
 
+    public Item(ID id, String category) {
+        this.id = id;
+        this.category = category;
+    }
+
+    public String category() {
+        return category;
+    }
+
     public static class ID {
 
         String value;
+
+        public ID(String value) {
+            this.value = value;
+        }
     }
 }
 
@@ -56,6 +70,10 @@ public class UserManager {
         return newUser;
     }
 
+    public Optional<User> find(String email) {
+        return Optional.ofNullable(users.get(email));
+    }
+
     public User login(String email, String password) {
         if (!users.containsKey(email)) throw new IllegalArgumentException(
             String.format("User not found or wrong password for email", email)
@@ -75,94 +93,1546 @@ public class UserManager {
     }
 }
 
-public class System {
+public class System implements AutoCloseable {
+
+    private static final Duration ANTI_SNIPING_WINDOW = Duration.ofSeconds(30);
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofMinutes(5);
 
     private final ConcurrentMap<Item.ID, Item> items;
     private final ConcurrentSkipListSet<Auction> auctions;
-    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<Auction, TimingWheel.Timer> endTimers;
+    private final TimingWheel scheduler;
+    private final AuctionEngine engine;
+    private final NotificationFanout notifications;
+    private final BrowseIndex browseIndex;
+    private final AuctionJournal journal;
 
     public System(
         ConcurrentHashMap<Item.ID, Item> items,
         ConcurrentSkipListSet<Auction> auctions,
-        ScheduledExecutorService scheduler
+        TimingWheel scheduler,
+        AuctionEngine engine,
+        NotificationFanout notifications,
+        BrowseIndex browseIndex,
+        AuctionJournal journal
     ) {
+        if (journal.shardCount() != engine.shardCount()) {
+            throw new IllegalArgumentException(
+                "Journal and engine shard counts differ"
+            );
+        }
         this.items = items;
         this.auctions = auctions;
+        this.endTimers = new ConcurrentHashMap<>();
         this.scheduler = scheduler;
+        this.engine = engine;
+        this.notifications = notifications;
+        this.browseIndex = browseIndex;
+        this.journal = journal;
+        scheduleSnapshots();
     }
 
     public System() {
+        this(Path.of("auction-journal"));
+    }
+
+    public System(Path journalDirectory) {
+        this(new AuctionEngine(), journalDirectory);
+    }
+
+    private System(AuctionEngine engine, Path journalDirectory) {
         this(
             new ConcurrentHashMap<>(),
-            new ConcurrentSkipListSet<>(),
-            Executors.newScheduledThreadPool(1)
+            new ConcurrentSkipListSet<>(
+                Comparator.comparing(auction -> auction.item().id().value)
+            ),
+            new TimingWheel(),
+            engine,
+            new NotificationFanout(),
+            new BrowseIndex(20),
+            new AuctionJournal(
+                journalDirectory,
+                engine.shardCount(),
+                512
+            )
         );
     }
 
     public Auction createAuction(Item item, User user) {
-        if (items.containsKey(itemId)) {
+        return createAuction(item, user, Duration.ofHours(1));
+    }
+
+    public Auction createAuction(Item item, User user, Duration duration) {
+        if (items.containsKey(item.id())) {
             throw new IllegalStateException("Item already in auction");
         }
 
         final var startTime = Instant.now();
-        final var endTime = startTime.plusSeconds(3600); // 1 hour auction
-        final var startingPrice = "10.00"; // Default starting price
-        final var minPrice = "50.00"; // Default minimum price
+        final var endTime = startTime.plus(duration);
+        final var startingPriceCents = 1_000L; // Default starting price
+        final var minPriceCents = 5_000L; // Default minimum price
 
         final var auction = new Auction(
             item,
             user,
             startTime,
             endTime,
-            startingPrice,
-            minPrice
+            startingPriceCents,
+            minPriceCents,
+            notifications
         );
 
         synchronized (this) {
             if (auctions.contains(auction)) {
                 throw new IllegalStateException("Auction already exists");
             }
-            if (items.containsKey(item)) {
+            if (items.containsKey(item.id())) {
                 throw new IllegalStateException("Item already in auction");
             }
             items.put(item.id(), item);
             auctions.add(auction);
-            final var delay = Duration.between(Instant.now(), endTime);
-            scheduler.schedule(
-                Auction::end,
-                delay.getSeconds(),
-                TimeUnit.Seconds
+            engine.submit(auction, () ->
+                journal.append(
+                    engine.shardIndexOf(auction),
+                    AuctionEvent.Created.of(auction)
+                )
             );
+            track(auction);
         }
 
         return auction;
     }
 
-    public List<Auction> getAuctions() {
-        return new ArrayList<>(auctions);
+    // Stops timers first so no new end or snapshot work is queued, then lets
+    // the engine finish what it has before the journal is closed.
+    @Override
+    public void close() {
+        scheduler.close();
+        engine.close();
+        notifications.close();
+        journal.close();
     }
 
-    public void placeBid(Auction auction, User user, String amount) {
-        if (!auction.isActive()) {
-            throw new IllegalStateException(
-                "Cannot place bid on inactive auction"
+    // Rebuilds the auctions still active in the journal, one engine shard
+    // per journal shard, before any new traffic is accepted.
+    public CompletableFuture<Void> recover(UserManager users) {
+        final var shards = new CompletableFuture<?>[engine.shardCount()];
+        for (var shard = 0; shard < shards.length; shard++) {
+            final var states = journal.recovered(shard);
+            shards[shard] = engine.submit(shard, () -> {
+                for (var state : states) restore(state, users);
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(shards);
+    }
+
+    public BrowseIndex.Page browse(
+        BrowseIndex.Order order,
+        BrowseIndex.Cursor after,
+        int pageSize
+    ) {
+        return browseIndex.page(order, after, pageSize);
+    }
+
+    public BrowseIndex.Page browseCategory(
+        String category,
+        BrowseIndex.Cursor after,
+        int pageSize
+    ) {
+        return browseIndex.pageByCategory(category, after, pageSize);
+    }
+
+    public List<Auction> endingSoon() {
+        return browseIndex.endingSoon();
+    }
+
+    public CompletableFuture<Boolean> placeBid(
+        Auction auction,
+        User user,
+        long amountCents
+    ) {
+        return engine
+            .submit(auction, () -> {
+                if (!auction.isActive()) {
+                    throw new IllegalStateException(
+                        "Cannot place bid on inactive auction"
+                    );
+                }
+                if (!auction.placeBid(user, amountCents)) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                final var bid = auction.highestBid().orElseThrow();
+                final var durable = journal.append(
+                    engine.shardIndexOf(auction),
+                    new AuctionEvent.BidPlaced(
+                        auction.item().id().value,
+                        user.email(),
+                        amountCents,
+                        bid.timestamp()
+                    )
+                );
+                extendIfSniped(auction);
+                browseIndex.update(auction);
+                return durable.thenApply(ignored -> true);
+            })
+            .thenCompose(durable -> durable);
+    }
+
+    public CompletableFuture<Void> follow(Auction auction, User user) {
+        return engine
+            .submit(auction, () -> {
+                auction.follow(user);
+                return journal.append(
+                    engine.shardIndexOf(auction),
+                    new AuctionEvent.Followed(
+                        auction.item().id().value,
+                        user.email()
+                    )
+                );
+            })
+            .thenCompose(durable -> durable);
+    }
+
+    private void track(Auction auction) {
+        engine.submit(auction, () -> {
+            if (auction.isActive()) {
+                browseIndex.add(auction);
+            } else {
+                scheduler.schedule(
+                    () -> engine.submit(auction, () -> start(auction)),
+                    auction.startTime()
+                );
+            }
+            scheduleEnd(auction);
+            return null;
+        });
+    }
+
+    private void restore(AuctionJournal.AuctionState state, UserManager users) {
+        final var item = new Item(
+            new Item.ID(state.auctionId()),
+            state.category()
+        );
+        final var auction = new Auction(
+            item,
+            requireUser(users, state.ownerEmail()),
+            state.startTime(),
+            state.endTime(),
+            state.startingPriceCents(),
+            state.minPriceCents(),
+            notifications
+        );
+        for (var bid : state.bids()) {
+            auction.restoreBid(
+                requireUser(users, bid.userEmail()),
+                bid.amountCents(),
+                bid.timestamp()
             );
         }
+        for (var email : state.followerEmails()) {
+            users.find(email).ifPresent(auction::follow);
+        }
+        items.put(item.id(), item);
+        auctions.add(auction);
+        track(auction);
+    }
 
-        // Or add a validate field to Auction class
-        if (amount.compareTo(auction.minPrice()) < 0) {
-            throw new IllegalArgumentException(
-                "Bid amount is below minimum price"
+    // Users are not journaled, so recovery needs a UserManager that already
+    // knows every owner and bidder; a missing one aborts recovery.
+    private static User requireUser(UserManager users, String email) {
+        return users
+            .find(email)
+            .orElseThrow(() ->
+                new IllegalStateException(
+                    "Journal references unknown user " + email
+                )
+            );
+    }
+
+    private Void start(Auction auction) {
+        auction.start();
+        browseIndex.add(auction);
+        return null;
+    }
+
+    // The wheel counts nanoTime ticks while the auction's end is wall-clock,
+    // so a timer can fire a little early; it is then simply rescheduled.
+    private Void end(Auction auction) {
+        if (auction.isEnded()) return null;
+        if (Instant.now().isBefore(auction.endTime())) {
+            final var previous = endTimers.get(auction);
+            if (previous != null) previous.cancel();
+            scheduleEnd(auction);
+            return null;
+        }
+        auction.end();
+        browseIndex.remove(auction);
+        endTimers.remove(auction);
+        journal.append(
+            engine.shardIndexOf(auction),
+            new AuctionEvent.Ended(auction.item().id().value)
+        );
+        return null;
+    }
+
+    private void scheduleEnd(Auction auction) {
+        endTimers.put(
+            auction,
+            scheduler.schedule(
+                () -> engine.submit(auction, () -> end(auction)),
+                auction.endTime()
+            )
+        );
+    }
+
+    private void scheduleSnapshots() {
+        scheduler.schedule(
+            () -> {
+                for (var shard = 0; shard < engine.shardCount(); shard++) {
+                    final var index = shard;
+                    engine.submit(index, () -> snapshot(index));
+                }
+                scheduleSnapshots();
+            },
+            Instant.now().plus(SNAPSHOT_INTERVAL)
+        );
+    }
+
+    private CompletableFuture<Void> snapshot(int shard) {
+        final var states = new ArrayList<AuctionJournal.AuctionState>();
+        for (var auction : auctions) {
+            if (auction.isEnded() || engine.shardIndexOf(auction) != shard) {
+                continue;
+            }
+            states.add(
+                AuctionJournal.AuctionState.of(
+                    auction,
+                    notifications.followersOf(auction)
+                )
             );
         }
+        return journal.snapshot(shard, states);
+    }
+
+    // Runs on the auction's shard, so the end timer is swapped without
+    // racing another bid or the end event itself.
+    private void extendIfSniped(Auction auction) {
+        final var now = Instant.now();
+        final var remaining = Duration.between(now, auction.endTime());
+        if (remaining.compareTo(ANTI_SNIPING_WINDOW) >= 0) return;
+        auction.extendEndTime(now.plus(ANTI_SNIPING_WINDOW));
+        journal.append(
+            engine.shardIndexOf(auction),
+            new AuctionEvent.Extended(
+                auction.item().id().value,
+                auction.endTime()
+            )
+        );
+        final var previous = endTimers.get(auction);
+        if (previous != null) previous.cancel();
+        scheduleEnd(auction);
+    }
+}
+
+public class BrowseIndex {
+
+    private final int endingSoonSize;
+    private final ConcurrentSkipListMap<Cursor, Auction> byEndTime;
+    private final ConcurrentSkipListMap<Cursor, Auction> byPrice;
+    private final ConcurrentMap<
+        String,
+        ConcurrentSkipListMap<Cursor, Auction>
+    > byCategory;
+    private final ConcurrentMap<Auction, Keys> keysByAuction;
+    private final AtomicLong endingSoonVersion;
+    private final AtomicReference<TopK> endingSoon;
+
+    public BrowseIndex(int endingSoonSize) {
+        this.endingSoonSize = endingSoonSize;
+        this.byEndTime = new ConcurrentSkipListMap<>();
+        this.byPrice = new ConcurrentSkipListMap<>();
+        this.byCategory = new ConcurrentHashMap<>();
+        this.keysByAuction = new ConcurrentHashMap<>();
+        this.endingSoonVersion = new AtomicLong();
+        this.endingSoon = new AtomicReference<>();
+    }
+
+    // add, update and remove for one auction run on its AuctionEngine shard.
+    public void add(Auction auction) {
+        final var keys = keysOf(auction);
+        keysByAuction.put(auction, keys);
+        byEndTime.put(keys.endTime(), auction);
+        byPrice.put(keys.price(), auction);
+        categoryIndex(auction).put(keys.endTime(), auction);
+        invalidateEndingSoon(keys.endTime());
+    }
+
+    public void update(Auction auction) {
+        final var previous = keysByAuction.get(auction);
+        if (previous == null) return;
+        final var keys = keysOf(auction);
+        if (!keys.price().equals(previous.price())) {
+            byPrice.remove(previous.price());
+            byPrice.put(keys.price(), auction);
+        }
+        if (!keys.endTime().equals(previous.endTime())) {
+            byEndTime.remove(previous.endTime());
+            byEndTime.put(keys.endTime(), auction);
+            final var category = categoryIndex(auction);
+            category.remove(previous.endTime());
+            category.put(keys.endTime(), auction);
+            invalidateEndingSoon(previous.endTime());
+        }
+        keysByAuction.put(auction, keys);
+    }
+
+    public void remove(Auction auction) {
+        final var keys = keysByAuction.remove(auction);
+        if (keys == null) return;
+        byEndTime.remove(keys.endTime());
+        byPrice.remove(keys.price());
+        categoryIndex(auction).remove(keys.endTime());
+        invalidateEndingSoon(keys.endTime());
+    }
+
+    public Page page(Order order, Cursor after, int pageSize) {
+        final var index = switch (order) {
+            case ENDING_SOONEST -> byEndTime;
+            case PRICE_LOWEST -> byPrice;
+            case PRICE_HIGHEST -> byPrice.descendingMap();
+        };
+        return page(index, after, pageSize);
+    }
+
+    public Page pageByCategory(String category, Cursor after, int pageSize) {
+        final var index = byCategory.get(category);
+        if (index == null) return new Page(List.of(), null);
+        return page(index, after, pageSize);
+    }
+
+    // A cached top-K is only served while its version is current, so one
+    // computed before an invalidation is never published as fresh.
+    public List<Auction> endingSoon() {
+        final var cached = endingSoon.get();
+        final var version = endingSoonVersion.get();
+        if (cached != null && cached.version() == version) {
+            return cached.auctions();
+        }
+
+        final var auctions = new ArrayList<Auction>(endingSoonSize);
+        Cursor last = null;
+        for (var entry : byEndTime.entrySet()) {
+            if (auctions.size() == endingSoonSize) break;
+            auctions.add(entry.getValue());
+            last = entry.getKey();
+        }
+        final var topK = new TopK(version, List.copyOf(auctions), last);
+        endingSoon.compareAndSet(cached, topK);
+        return topK.auctions();
+    }
+
+    private Page page(
+        ConcurrentNavigableMap<Cursor, Auction> index,
+        Cursor after,
+        int pageSize
+    ) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        final var view = after == null ? index : index.tailMap(after, false);
+        final var auctions = new ArrayList<Auction>(pageSize);
+        Cursor last = null;
+        for (var entry : view.entrySet()) {
+            if (auctions.size() == pageSize) return new Page(auctions, last);
+            auctions.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new Page(auctions, null);
+    }
+
+    // Only changes at or before the last cached entry can reorder the top-K.
+    private void invalidateEndingSoon(Cursor changed) {
+        final var cached = endingSoon.get();
+        if (
+            cached == null ||
+            cached.version() != endingSoonVersion.get() ||
+            cached.auctions().size() < endingSoonSize ||
+            changed.compareTo(cached.last()) <= 0
+        ) {
+            endingSoonVersion.incrementAndGet();
+        }
+    }
+
+    private ConcurrentSkipListMap<Cursor, Auction> categoryIndex(
+        Auction auction
+    ) {
+        return byCategory.computeIfAbsent(auction.item().category(), c ->
+            new ConcurrentSkipListMap<>()
+        );
+    }
+
+    private static Keys keysOf(Auction auction) {
+        final var id = auction.item().id().value;
+        return new Keys(
+            new Cursor(auction.endTime().toEpochMilli(), id),
+            new Cursor(auction.currentPriceCents(), id)
+        );
+    }
+
+    public static enum Order {
+        ENDING_SOONEST,
+        PRICE_LOWEST,
+        PRICE_HIGHEST,
+    }
+
+    public record Cursor(long value, String auctionId)
+        implements Comparable<Cursor> {
+        @Override
+        public int compareTo(Cursor other) {
+            final var byValue = Long.compare(value, other.value);
+            return byValue != 0
+                ? byValue
+                : auctionId.compareTo(other.auctionId);
+        }
+    }
+
+    public record Page(List<Auction> auctions, Cursor next) {
+        public boolean hasNext() {
+            return next != null;
+        }
+    }
+
+    private record Keys(Cursor endTime, Cursor price) {}
+
+    private record TopK(long version, List<Auction> auctions, Cursor last) {}
+}
+
+public class AuctionEngine implements AutoCloseable {
 
-        final var bid = new Bid(user, amount, Instant.now());
+    private final ExecutorService[] shards;
 
-        auction.bids().add(bid);
+    public AuctionEngine(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shards = new ExecutorService[shardCount];
+        for (var i = 0; i < shardCount; i++) {
+            shards[i] = Executors.newSingleThreadExecutor();
+        }
     }
 
-    public follow(Auction auction, User user) {
-        auction.follow(user);
+    public AuctionEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public <T> CompletableFuture<T> submit(Auction auction, Supplier<T> task) {
+        return submit(shardIndexOf(auction), task);
+    }
+
+    public <T> CompletableFuture<T> submit(int shard, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, shards[shard]);
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public int shardIndexOf(Auction auction) {
+        final var hash = auction.item().id().value.hashCode();
+        return Math.floorMod(hash, shards.length);
+    }
+
+    @Override
+    public void close() {
+        for (var shard : shards) shard.shutdown();
+        try {
+            for (var shard : shards) {
+                shard.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+public sealed interface AuctionEvent {
+    String auctionId();
+
+    public record Created(
+        String auctionId,
+        String category,
+        String ownerEmail,
+        Instant startTime,
+        Instant endTime,
+        long startingPriceCents,
+        long minPriceCents
+    ) implements AuctionEvent {
+        public static Created of(Auction auction) {
+            return new Created(
+                auction.item().id().value,
+                auction.item().category(),
+                auction.ownerEmail(),
+                auction.startTime(),
+                auction.endTime(),
+                auction.startingPriceCents(),
+                auction.minPriceCents()
+            );
+        }
+    }
+
+    public record BidPlaced(
+        String auctionId,
+        String userEmail,
+        long amountCents,
+        Instant timestamp
+    ) implements AuctionEvent {}
+
+    public record Followed(String auctionId, String userEmail)
+        implements AuctionEvent {}
+
+    public record Extended(String auctionId, Instant endTime)
+        implements AuctionEvent {}
+
+    public record Ended(String auctionId) implements AuctionEvent {}
+}
+
+public class AuctionJournal implements AutoCloseable {
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int FRAME_HEADER = 2 * Integer.BYTES;
+
+    private final Shard[] shards;
+    private final ExecutorService snapshotWriter;
+
+    // Replays every shard in parallel, then opens a fresh segment per shard
+    // for new appends. Recovered state is handed out via recovered().
+    public AuctionJournal(Path directory, int shardCount, int maxBatch) {
+        this.shards = new Shard[shardCount];
+        this.snapshotWriter = Executors.newSingleThreadExecutor();
+        IntStream.range(0, shardCount)
+            .parallel()
+            .forEach(i -> {
+                final var shardDirectory = directory.resolve("shard-" + i);
+                try {
+                    shards[i] = new Shard(shardDirectory, maxBatch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public Collection<AuctionState> recovered(int shard) {
+        return shards[shard].recovered.values();
+    }
+
+    // Must be called from the engine shard that owns the auction, which is
+    // what keeps sequence numbers in event order.
+    public CompletableFuture<Void> append(int shard, AuctionEvent event) {
+        return shards[shard].enqueue(event);
+    }
+
+    // Must be called from the engine shard, with the state of every active
+    // auction on it; segments covered by the snapshot are then deleted.
+    public CompletableFuture<Void> snapshot(
+        int shard,
+        List<AuctionState> states
+    ) {
+        final var target = shards[shard];
+        final var lastSeq = target.nextSeq - 1;
+        final var rolled = target.enqueue(null);
+        final var written = CompletableFuture.runAsync(
+            () -> target.writeSnapshot(lastSeq, states),
+            snapshotWriter
+        );
+        return rolled
+            .thenCombine(written, (r, w) -> null)
+            .thenRun(() -> target.deleteSegmentsBefore(lastSeq + 1));
+    }
+
+    @Override
+    public void close() {
+        snapshotWriter.shutdown();
+        for (var shard : shards) shard.close();
+    }
+
+    public record AuctionState(
+        String auctionId,
+        String category,
+        String ownerEmail,
+        Instant startTime,
+        Instant endTime,
+        long startingPriceCents,
+        long minPriceCents,
+        List<BidState> bids,
+        List<String> followerEmails
+    ) {
+        public static AuctionState of(
+            Auction auction,
+            List<Observer> followers
+        ) {
+            final var bids = new ArrayList<BidState>();
+            for (var bid : auction.bids()) {
+                bids.add(
+                    new BidState(
+                        bid.userEmail(),
+                        bid.amountCents(),
+                        bid.timestamp()
+                    )
+                );
+            }
+            final var followerEmails = new ArrayList<String>();
+            for (var follower : followers) {
+                if (follower instanceof User user) {
+                    followerEmails.add(user.email());
+                }
+            }
+            return new AuctionState(
+                auction.item().id().value,
+                auction.item().category(),
+                auction.ownerEmail(),
+                auction.startTime(),
+                auction.endTime(),
+                auction.startingPriceCents(),
+                auction.minPriceCents(),
+                bids,
+                followerEmails
+            );
+        }
+
+        private static AuctionState of(AuctionEvent.Created created) {
+            return new AuctionState(
+                created.auctionId(),
+                created.category(),
+                created.ownerEmail(),
+                created.startTime(),
+                created.endTime(),
+                created.startingPriceCents(),
+                created.minPriceCents(),
+                new ArrayList<>(),
+                new ArrayList<>()
+            );
+        }
+
+        private AuctionState withEndTime(Instant newEndTime) {
+            return new AuctionState(
+                auctionId,
+                category,
+                ownerEmail,
+                startTime,
+                newEndTime,
+                startingPriceCents,
+                minPriceCents,
+                bids,
+                followerEmails
+            );
+        }
+    }
+
+    public record BidState(
+        String userEmail,
+        long amountCents,
+        Instant timestamp
+    ) {}
+
+    private static final class Shard {
+
+        // Queued by close; the writer commits what is ahead of it and exits.
+        private static final Entry STOP = new Entry(-1, null, null);
+
+        private final Path directory;
+        private final int maxBatch;
+        private final Map<String, AuctionState> recovered;
+        private final BlockingQueue<Entry> queue;
+        private final Thread writer;
+        private final ByteArrayOutputStream frame;
+        private FileChannel segment;
+        private volatile boolean closed;
+        // Only touched by the engine shard thread that appends to us.
+        private long nextSeq;
+
+        Shard(Path directory, int maxBatch) throws IOException {
+            this.directory = Files.createDirectories(directory);
+            this.maxBatch = maxBatch;
+            this.recovered = new HashMap<>();
+            this.queue = new LinkedBlockingQueue<>();
+            this.frame = new ByteArrayOutputStream();
+            this.nextSeq = replay() + 1;
+            this.segment = openSegment(nextSeq);
+            this.writer = new Thread(this::writeLoop, directory + "-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        CompletableFuture<Void> enqueue(AuctionEvent event) {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("Journal is closed")
+                );
+            }
+            final var entry = new Entry(
+                nextSeq,
+                event,
+                new CompletableFuture<>()
+            );
+            if (event != null) nextSeq++;
+            queue.add(entry);
+            // Raced with close after it drained the queue: nobody else will
+            // complete the entry.
+            if (closed && queue.remove(entry)) {
+                entry.done().completeExceptionally(
+                    new IllegalStateException("Journal is closed")
+                );
+            }
+            return entry.done();
+        }
+
+        private long replay() throws IOException {
+            var lastSeq = readSnapshot();
+            for (var path : segments()) {
+                var goodBytes = 0L;
+                try (
+                    var in = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(path))
+                    )
+                ) {
+                    while (true) {
+                        final var frameBody = readFrame(in);
+                        if (frameBody == null) break;
+                        goodBytes += FRAME_HEADER + frameBody.length;
+                        final var body = new DataInputStream(
+                            new ByteArrayInputStream(frameBody)
+                        );
+                        final var seq = body.readLong();
+                        final var event = decode(body);
+                        if (seq <= lastSeq) continue;
+                        apply(event);
+                        lastSeq = seq;
+                    }
+                }
+                truncate(path, goodBytes);
+            }
+            return lastSeq;
+        }
+
+        // Cuts a torn tail off so frames appended after restart are not
+        // hidden behind it on the next replay.
+        private static void truncate(Path segment, long goodBytes)
+            throws IOException {
+            if (Files.size(segment) == goodBytes) return;
+            try (
+                var channel = FileChannel.open(
+                    segment,
+                    StandardOpenOption.WRITE
+                )
+            ) {
+                channel.truncate(goodBytes);
+                channel.force(true);
+            }
+        }
+
+        private void apply(AuctionEvent event) {
+            if (event instanceof AuctionEvent.Created created) {
+                recovered.put(created.auctionId(), AuctionState.of(created));
+                return;
+            }
+            final var state = recovered.get(event.auctionId());
+            if (state == null) return;
+            switch (event) {
+                case AuctionEvent.BidPlaced bid -> state
+                    .bids()
+                    .add(
+                        new BidState(
+                            bid.userEmail(),
+                            bid.amountCents(),
+                            bid.timestamp()
+                        )
+                    );
+                case AuctionEvent.Followed followed -> state
+                    .followerEmails()
+                    .add(followed.userEmail());
+                case AuctionEvent.Extended extended -> recovered.put(
+                    state.auctionId(),
+                    state.withEndTime(extended.endTime())
+                );
+                case AuctionEvent.Ended ended -> recovered.remove(
+                    state.auctionId()
+                );
+                case AuctionEvent.Created created -> {}
+            }
+        }
+
+        private void writeLoop() {
+            final var batch = new ArrayList<Entry>(maxBatch);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    final var stop = batch.remove(STOP);
+                    writeBatch(batch);
+                    batch.clear();
+                    if (stop) return;
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Group commit: one write and one force for the whole batch.
+        private void writeBatch(List<Entry> batch) {
+            final var pending = new ArrayList<Entry>(batch.size());
+            try {
+                for (var entry : batch) {
+                    if (entry.event() == null) {
+                        flush(pending);
+                        segment.close();
+                        segment = openSegment(entry.seq());
+                        entry.done().complete(null);
+                    } else {
+                        writeFrame(entry.seq(), entry.event());
+                        pending.add(entry);
+                    }
+                }
+                flush(pending);
+            } catch (IOException e) {
+                frame.reset();
+                for (var entry : batch) {
+                    entry.done().completeExceptionally(
+                        new UncheckedIOException(e)
+                    );
+                }
+            }
+        }
+
+        private void flush(List<Entry> pending) throws IOException {
+            if (pending.isEmpty()) return;
+            final var bytes = ByteBuffer.wrap(frame.toByteArray());
+            while (bytes.hasRemaining()) segment.write(bytes);
+            segment.force(false);
+            frame.reset();
+            for (var entry : pending) entry.done().complete(null);
+            pending.clear();
+        }
+
+        private void writeFrame(long seq, AuctionEvent event)
+            throws IOException {
+            final var body = new ByteArrayOutputStream();
+            final var out = new DataOutputStream(body);
+            out.writeLong(seq);
+            encode(out, event);
+            final var crc = new CRC32();
+            crc.update(body.toByteArray());
+            final var header = new DataOutputStream(frame);
+            header.writeInt(body.size());
+            header.writeInt((int) crc.getValue());
+            body.writeTo(frame);
+        }
+
+        // Returns null at end of segment or at a torn or corrupt tail.
+        private static byte[] readFrame(DataInputStream in)
+            throws IOException {
+            try {
+                final var length = in.readInt();
+                final var checksum = in.readInt();
+                if (length < Long.BYTES) return null;
+                final var body = in.readNBytes(length);
+                if (body.length < length) return null;
+                final var crc = new CRC32();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) return null;
+                return body;
+            } catch (EOFException eof) {
+                return null;
+            }
+        }
+
+        private void writeSnapshot(long lastSeq, List<AuctionState> states) {
+            final var temp = directory.resolve(SNAPSHOT + ".tmp");
+            try (
+                var out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp))
+                )
+            ) {
+                out.writeLong(lastSeq);
+                out.writeInt(states.size());
+                for (var state : states) {
+                    encode(out, created(state));
+                    out.writeInt(state.bids().size());
+                    for (var bid : state.bids()) {
+                        out.writeUTF(bid.userEmail());
+                        out.writeLong(bid.amountCents());
+                        out.writeLong(bid.timestamp().toEpochMilli());
+                    }
+                    out.writeInt(state.followerEmails().size());
+                    for (var email : state.followerEmails()) {
+                        out.writeUTF(email);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            try (
+                var channel = FileChannel.open(temp, StandardOpenOption.WRITE)
+            ) {
+                channel.force(true);
+                Files.move(
+                    temp,
+                    directory.resolve(SNAPSHOT),
+                    StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING
+                );
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private long readSnapshot() throws IOException {
+            final var path = directory.resolve(SNAPSHOT);
+            if (!Files.exists(path)) return 0;
+            try (
+                var in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(path))
+                )
+            ) {
+                final var lastSeq = in.readLong();
+                final var count = in.readInt();
+                for (var i = 0; i < count; i++) {
+                    final var created = (AuctionEvent.Created) decode(in);
+                    final var state = AuctionState.of(created);
+                    final var bids = in.readInt();
+                    for (var b = 0; b < bids; b++) {
+                        state
+                            .bids()
+                            .add(
+                                new BidState(
+                                    in.readUTF(),
+                                    in.readLong(),
+                                    Instant.ofEpochMilli(in.readLong())
+                                )
+                            );
+                    }
+                    final var followers = in.readInt();
+                    for (var f = 0; f < followers; f++) {
+                        state.followerEmails().add(in.readUTF());
+                    }
+                    recovered.put(state.auctionId(), state);
+                }
+                return lastSeq;
+            }
+        }
+
+        private void deleteSegmentsBefore(long firstLiveSeq) {
+            try {
+                for (var path : segments()) {
+                    if (firstSeqOf(path) < firstLiveSeq) Files.delete(path);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<Path> segments() throws IOException {
+            try (var files = Files.list(directory)) {
+                return files
+                    .filter(path ->
+                        path.getFileName().toString().endsWith(SEGMENT_SUFFIX)
+                    )
+                    .sorted(Comparator.comparingLong(Shard::firstSeqOf))
+                    .toList();
+            }
+        }
+
+        private FileChannel openSegment(long firstSeq) throws IOException {
+            return FileChannel.open(
+                directory.resolve(firstSeq + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+            );
+        }
+
+        private static long firstSeqOf(Path segment) {
+            final var name = segment.getFileName().toString();
+            return Long.parseLong(
+                name.substring(0, name.length() - SEGMENT_SUFFIX.length())
+            );
+        }
+
+        // Stops new appends, lets the writer commit everything queued ahead
+        // of the stop marker, and fails whatever slipped in behind it.
+        private void close() {
+            closed = true;
+            queue.add(STOP);
+            try {
+                writer.join();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            for (Entry entry; (entry = queue.poll()) != null; ) {
+                if (entry == STOP) continue;
+                entry.done().completeExceptionally(
+                    new IllegalStateException("Journal is closed")
+                );
+            }
+            try {
+                segment.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static AuctionEvent.Created created(AuctionState state) {
+            return new AuctionEvent.Created(
+                state.auctionId(),
+                state.category(),
+                state.ownerEmail(),
+                state.startTime(),
+                state.endTime(),
+                state.startingPriceCents(),
+                state.minPriceCents()
+            );
+        }
+
+        private static void encode(DataOutputStream out, AuctionEvent event)
+            throws IOException {
+            switch (event) {
+                case AuctionEvent.Created created -> {
+                    out.writeByte(1);
+                    out.writeUTF(created.auctionId());
+                    out.writeUTF(created.category());
+                    out.writeUTF(created.ownerEmail());
+                    out.writeLong(created.startTime().toEpochMilli());
+                    out.writeLong(created.endTime().toEpochMilli());
+                    out.writeLong(created.startingPriceCents());
+                    out.writeLong(created.minPriceCents());
+                }
+                case AuctionEvent.BidPlaced bid -> {
+                    out.writeByte(2);
+                    out.writeUTF(bid.auctionId());
+                    out.writeUTF(bid.userEmail());
+                    out.writeLong(bid.amountCents());
+                    out.writeLong(bid.timestamp().toEpochMilli());
+                }
+                case AuctionEvent.Followed followed -> {
+                    out.writeByte(3);
+                    out.writeUTF(followed.auctionId());
+                    out.writeUTF(followed.userEmail());
+                }
+                case AuctionEvent.Extended extended -> {
+                    out.writeByte(4);
+                    out.writeUTF(extended.auctionId());
+                    out.writeLong(extended.endTime().toEpochMilli());
+                }
+                case AuctionEvent.Ended ended -> {
+                    out.writeByte(5);
+                    out.writeUTF(ended.auctionId());
+                }
+            }
+        }
+
+        private static AuctionEvent decode(DataInputStream in)
+            throws IOException {
+            return switch (in.readByte()) {
+                case 1 -> new AuctionEvent.Created(
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readUTF(),
+                    Instant.ofEpochMilli(in.readLong()),
+                    Instant.ofEpochMilli(in.readLong()),
+                    in.readLong(),
+                    in.readLong()
+                );
+                case 2 -> new AuctionEvent.BidPlaced(
+                    in.readUTF(),
+                    in.readUTF(),
+                    in.readLong(),
+                    Instant.ofEpochMilli(in.readLong())
+                );
+                case 3 -> new AuctionEvent.Followed(
+                    in.readUTF(),
+                    in.readUTF()
+                );
+                case 4 -> new AuctionEvent.Extended(
+                    in.readUTF(),
+                    Instant.ofEpochMilli(in.readLong())
+                );
+                case 5 -> new AuctionEvent.Ended(in.readUTF());
+                default -> throw new IOException("Unknown journal event type");
+            };
+        }
+
+        private record Entry(
+            long seq,
+            AuctionEvent event,
+            CompletableFuture<Void> done
+        ) {}
+    }
+}
+
+public final class TimingWheel implements AutoCloseable {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long originNanos;
+    private final Bucket[][] wheels;
+    private final Queue<Timer> added;
+    private final Queue<Timer> cancelled;
+    private final Executor taskExecutor;
+    private final Thread ticker;
+    private volatile boolean running;
+    private long currentTick;
+
+    public TimingWheel(Duration tick, Executor taskExecutor) {
+        this.tickNanos = tick.toNanos();
+        this.originNanos = java.lang.System.nanoTime();
+        this.wheels = new Bucket[LEVELS][SLOTS];
+        for (var level = 0; level < LEVELS; level++) {
+            for (var slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new Bucket();
+            }
+        }
+        this.added = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.taskExecutor = taskExecutor;
+        this.running = true;
+        this.ticker = new Thread(this::run, "auction-timing-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public TimingWheel() {
+        this(Duration.ofMillis(100), Runnable::run);
+    }
+
+    public Timer schedule(Runnable task, Instant at) {
+        final var delayNanos = Math.max(
+            0,
+            Duration.between(Instant.now(), at).toNanos()
+        );
+        final var elapsedNanos = java.lang.System.nanoTime() - originNanos;
+        final var timer = new Timer(
+            this,
+            task,
+            (elapsedNanos + delayNanos + tickNanos - 1) / tickNanos
+        );
+        added.add(timer);
+        return timer;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(ticker);
+    }
+
+    private void run() {
+        while (running) {
+            final var elapsedNanos = java.lang.System.nanoTime() - originNanos;
+            final var targetTick = elapsedNanos / tickNanos;
+            for (Timer timer; (timer = added.poll()) != null; ) {
+                if (timer.isPending()) place(timer);
+            }
+            for (Timer timer; (timer = cancelled.poll()) != null; ) {
+                if (timer.bucket != null) timer.bucket.remove(timer);
+            }
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                final var due = wheels[0][(int) (currentTick & SLOT_MASK)];
+                for (var timer = due.drain(); timer != null; ) {
+                    final var next = timer.next;
+                    timer.next = null;
+                    expire(timer);
+                    timer = next;
+                }
+            }
+            LockSupport.parkNanos((targetTick + 1) * tickNanos - elapsedNanos);
+        }
+    }
+
+    private void cascade() {
+        for (var level = 1; level < LEVELS; level++) {
+            final var shift = SLOT_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) return;
+            final var bucket = wheels[level][
+                (int) ((currentTick >>> shift) & SLOT_MASK)
+            ];
+            for (var timer = bucket.drain(); timer != null; ) {
+                final var next = timer.next;
+                timer.next = null;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer timer) {
+        final var delta = timer.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(timer);
+            return;
+        }
+        final var tick = currentTick + Math.min(delta, MAX_DELTA);
+        var level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1)) && level < LEVELS - 1) {
+            level++;
+        }
+        final var slot = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        wheels[level][slot].add(timer);
+    }
+
+    private void expire(Timer timer) {
+        if (!Timer.STATE.compareAndSet(timer, Timer.PENDING, Timer.EXPIRED)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(timer.task);
+        } catch (RuntimeException e) {
+            // A failing task must not stop the tick thread.
+        }
+    }
+
+    public static final class Timer {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timer> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Timer.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick;
+        private volatile int state;
+
+        // Owned by the tick thread.
+        private Bucket bucket;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(TimingWheel wheel, Runnable task, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isPending() {
+            return state == PENDING;
+        }
+    }
+
+    private static final class Bucket {
+
+        private Timer head;
+        private Timer tail;
+
+        void add(Timer timer) {
+            timer.bucket = this;
+            timer.prev = tail;
+            if (tail == null) head = timer;
+            else tail.next = timer;
+            tail = timer;
+        }
+
+        void remove(Timer timer) {
+            if (timer.prev == null) head = timer.next;
+            else timer.prev.next = timer.next;
+            if (timer.next == null) tail = timer.prev;
+            else timer.next.prev = timer.prev;
+            timer.bucket = null;
+            timer.prev = null;
+            timer.next = null;
+        }
+
+        Timer drain() {
+            final var first = head;
+            for (var timer = first; timer != null; timer = timer.next) {
+                timer.bucket = null;
+                timer.prev = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+}
+
+public class NotificationFanout implements AutoCloseable {
+
+    private final int mailboxCapacity;
+    private final ExecutorService[] workers;
+    private final List<Map<Observer, Mailbox>> mailboxesByWorker;
+    private final ConcurrentMap<Auction, List<Queue<Observer>>> followers;
+    private final Set<Auction> dirty;
+    private final ScheduledExecutorService flusher;
+
+    public NotificationFanout(
+        int workerCount,
+        Duration window,
+        int mailboxCapacity
+    ) {
+        this.mailboxCapacity = mailboxCapacity;
+        this.workers = new ExecutorService[workerCount];
+        this.mailboxesByWorker = new ArrayList<>(workerCount);
+        for (var i = 0; i < workerCount; i++) {
+            workers[i] = Executors.newSingleThreadExecutor();
+            mailboxesByWorker.add(new HashMap<>());
+        }
+        this.followers = new ConcurrentHashMap<>();
+        this.dirty = ConcurrentHashMap.newKeySet();
+        this.flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleAtFixedRate(
+            this::flush,
+            window.toMillis(),
+            window.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public NotificationFanout() {
+        this(
+            Runtime.getRuntime().availableProcessors(),
+            Duration.ofMillis(250),
+            16
+        );
+    }
+
+    public void follow(Auction auction, Observer observer) {
+        if (auction.isEnded()) return;
+        followers
+            .computeIfAbsent(auction, a -> {
+                final var shards = new ArrayList<Queue<Observer>>();
+                for (var i = 0; i < workers.length; i++) {
+                    shards.add(new ConcurrentLinkedQueue<>());
+                }
+                return shards;
+            })
+            .get(workerOf(observer))
+            .add(observer);
+        // The auction may have ended, and its followers been dropped, while
+        // this one was added; marking it dirty again makes the next flush
+        // send the END and drop the recreated entry.
+        if (auction.isEnded()) dirty.add(auction);
+    }
+
+    public void publish(Auction auction) {
+        if (followers.containsKey(auction)) dirty.add(auction);
+    }
+
+    public List<Observer> followersOf(Auction auction) {
+        final var shards = followers.get(auction);
+        if (shards == null) return List.of();
+        final var observers = new ArrayList<Observer>();
+        for (var shard : shards) observers.addAll(shard);
+        return observers;
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        for (var worker : workers) worker.shutdown();
+    }
+
+    private void flush() {
+        for (var it = dirty.iterator(); it.hasNext(); ) {
+            final var auction = it.next();
+            it.remove();
+            // The END notification is the last one an auction sends, so its
+            // followers are dropped once that fan-out is handed off.
+            final var shards = auction.isEnded()
+                ? followers.remove(auction)
+                : followers.get(auction);
+            if (shards == null) continue;
+            for (var i = 0; i < workers.length; i++) {
+                final var worker = i;
+                final var observers = shards.get(worker);
+                if (observers.isEmpty()) continue;
+                workers[worker].execute(() ->
+                    fanOut(worker, auction, observers)
+                );
+            }
+        }
+    }
+
+    // Runs on the observer's worker, which owns its mailbox outright.
+    private void fanOut(
+        int worker,
+        Auction auction,
+        Queue<Observer> observers
+    ) {
+        final var mailboxes = mailboxesByWorker.get(worker);
+        for (var observer : observers) {
+            final var mailbox = mailboxes.computeIfAbsent(observer, o ->
+                new Mailbox(mailboxCapacity)
+            );
+            if (mailbox.offer(auction)) {
+                workers[worker].execute(() -> drain(worker, observer, mailbox));
+            }
+        }
+    }
+
+    // An emptied mailbox is removed so only observers with pending updates
+    // keep an entry; the next fan-out to them creates a fresh one.
+    private void drain(int worker, Observer observer, Mailbox mailbox) {
+        for (Auction auction; (auction = mailbox.poll()) != null; ) {
+            try {
+                observer.update(auction);
+            } catch (RuntimeException e) {
+                // One failing follower must not starve the rest.
+            }
+        }
+        mailboxesByWorker.get(worker).remove(observer, mailbox);
+    }
+
+    private int workerOf(Observer observer) {
+        return Math.floorMod(observer.hashCode(), workers.length);
+    }
+
+    private static class Mailbox {
+
+        private final int capacity;
+        private final LinkedHashSet<Auction> pending;
+
+        Mailbox(int capacity) {
+            this.capacity = capacity;
+            this.pending = new LinkedHashSet<>();
+        }
+
+        // Returns true when the mailbox was empty and needs a drain.
+        boolean offer(Auction auction) {
+            final var wasEmpty = pending.isEmpty();
+            if (!pending.add(auction)) return false;
+            if (pending.size() > capacity) {
+                final var oldest = pending.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            return wasEmpty;
+        }
+
+        Auction poll() {
+            final var oldest = pending.iterator();
+            if (!oldest.hasNext()) return null;
+            final var auction = oldest.next();
+            oldest.remove();
+            return auction;
+        }
     }
 }
 
@@ -170,60 +1640,146 @@ public class Auction {
 
     private final Item item;
     private final User owner;
+    private final String ownerEmail;
     private final Instant startTime;
-    private final Instant endTime;
-    private final Auction.Status status;
-    private final String startingPrice;
-    private final String minPrice;
+    private volatile Instant endTime;
+    private volatile Auction.Status status;
+    private final long startingPriceCents;
+    private final long minPriceCents;
 
-    private final ConcurrentSkipListSet<Bid> bids;
-    private final List<Observer> observers;
+    private final AtomicReference<Bid> highestBid;
+    private final NotificationFanout notifications;
 
     public Auction(
         Item item,
         User owner,
         Instant startTime,
         Instant endTime,
-        String startingPrice,
-        String minPrice
+        long startingPriceCents,
+        long minPriceCents,
+        NotificationFanout notifications
     ) {
         this.item = item;
         this.owner = owner;
+        this.ownerEmail = owner.email();
         this.startTime = startTime;
         this.endTime = endTime;
         this.status = startTime.isBefore(Instant.now())
             ? Status.ACTIVE
             : Status.NOT_STARTED;
 
-        this.startingPrice = startingPrice;
-        this.minPrice = minPrice;
-        this.bids = new ConcurrentSkipListSet<>((b1, b2) ->
-            b1.amount().compareTo(b2.amount())
-        );
-        this.observers = Collections.synchronizedList(new ArrayList<>());
+        this.startingPriceCents = startingPriceCents;
+        this.minPriceCents = minPriceCents;
+        this.highestBid = new AtomicReference<>();
+        this.notifications = notifications;
+    }
+
+    public Item item() {
+        return item;
+    }
+
+    public User owner() {
+        return owner;
+    }
+
+    public String ownerEmail() {
+        return ownerEmail;
+    }
+
+    public Instant startTime() {
+        return startTime;
+    }
+
+    public Instant endTime() {
+        return endTime;
+    }
+
+    public long startingPriceCents() {
+        return startingPriceCents;
+    }
+
+    public long minPriceCents() {
+        return minPriceCents;
     }
 
     public boolean isActive() {
         return status == Status.ACTIVE;
     }
 
-    public synchronized void end() {
+    public boolean isEnded() {
+        return status == Status.ENDED;
+    }
+
+    public void start() {
+        if (status == Status.NOT_STARTED) status = Status.ACTIVE;
+    }
+
+    public void extendEndTime(Instant newEndTime) {
+        if (status == Status.ENDED || !newEndTime.isAfter(endTime)) {
+            throw new IllegalStateException("Auction end cannot be extended");
+        }
+        this.endTime = newEndTime;
+    }
+
+    public boolean placeBid(User user, long amountCents) {
+        final var floor = Math.max(startingPriceCents, minPriceCents);
+        if (amountCents < floor) return false;
+
+        Bid current;
+        Bid bid;
+        do {
+            current = highestBid.get();
+            if (current != null && amountCents <= current.amountCents()) {
+                return false;
+            }
+            bid = new Bid(user, amountCents, Instant.now(), current);
+        } while (!highestBid.compareAndSet(current, bid));
+
+        notifyObservers();
+        return true;
+    }
+
+    // Re-applies a bid that was already accepted before a restart.
+    public void restoreBid(User user, long amountCents, Instant timestamp) {
+        highestBid.set(
+            new Bid(user, amountCents, timestamp, highestBid.get())
+        );
+    }
+
+    public long currentPriceCents() {
+        final var bid = highestBid.get();
+        return bid == null ? startingPriceCents : bid.amountCents();
+    }
+
+    public Optional<Bid> highestBid() {
+        return Optional.ofNullable(highestBid.get());
+    }
+
+    public List<Bid> bids() {
+        final var bids = new ArrayList<Bid>();
+        for (var bid = highestBid.get(); bid != null; bid = bid.previous()) {
+            bids.add(bid);
+        }
+        Collections.reverse(bids);
+        return bids;
+    }
+
+    public void end() {
         if (Instant.now().isBefore(endTime)) {
             throw new IllegalStateException(
                 "Auction cannot be ended before its end time"
             );
         }
         this.status = Status.ENDED;
+        notifyObservers();
     }
 
     public void follow(Observer observer) {
-        observers.add(observer);
+        notifications.follow(this, observer);
     }
 
     private void notifyObservers() {
-        for (Observer observer : observers) {
-            observer.update(this);
-        }
+        notifications.publish(this);
     }
 
     public static enum Status {
@@ -236,6 +1792,305 @@ public class Auction {
 public class Bid {
 
     private final User user;
-    private final String amount;
+    private final String userEmail;
+    private final long amountCents;
     private final Instant timestamp;
+    private final Bid previous;
+
+    public Bid(User user, long amountCents, Instant timestamp, Bid previous) {
+        this.user = user;
+        this.userEmail = user.email();
+        this.amountCents = amountCents;
+        this.timestamp = timestamp;
+        this.previous = previous;
+    }
+
+    public User user() {
+        return user;
+    }
+
+    public String userEmail() {
+        return userEmail;
+    }
+
+    public long amountCents() {
+        return amountCents;
+    }
+
+    public Instant timestamp() {
+        return timestamp;
+    }
+
+    public Bid previous() {
+        return previous;
+    }
+}
+
+public class SnipingLoadGenerator {
+
+    private final System system;
+    private final int auctionCount;
+    private final List<User> bidders;
+    private final double zipfExponent;
+    private final LatencyRecorder notificationLag;
+    private final Observer lagProbe;
+    private final User owner;
+
+    public SnipingLoadGenerator(
+        System system,
+        int auctionCount,
+        int bidderCount,
+        double zipfExponent
+    ) {
+        this.system = system;
+        this.auctionCount = auctionCount;
+        this.bidders = new ArrayList<>(bidderCount);
+        this.zipfExponent = zipfExponent;
+        this.notificationLag = new LatencyRecorder(1 << 16);
+        this.owner = new User("owner@load.test", "owner");
+        // The END notification is not about a bid, so it is not timed.
+        this.lagProbe = auction -> {
+            if (auction.isEnded()) return;
+            auction
+                .highestBid()
+                .ifPresent(bid ->
+                    notificationLag.record(
+                        Duration.between(bid.timestamp(), Instant.now())
+                    )
+                );
+        };
+        for (var i = 0; i < bidderCount; i++) {
+            bidders.add(new User("bidder-" + i + "@load.test", "bidder"));
+        }
+    }
+
+    // Auction ends are spread evenly over endingSpread, starting one storm
+    // window into the run. Most bids go to auctions whose scheduled end is
+    // within a storm window of now, back to back, like snipers; the rest are
+    // Zipf-distributed background bids with think time. Pick duration so the
+    // last end plus the anti-sniping window still falls inside the run.
+    public Report run(
+        int threads,
+        Duration duration,
+        Duration endingSpread,
+        Duration stormWindow,
+        Duration thinkTime,
+        double snipeShare
+    ) throws InterruptedException {
+        final var start = Instant.now();
+        final var plannedEnds = new Instant[auctionCount];
+        final var auctions = new ArrayList<Auction>(auctionCount);
+        for (var i = 0; i < auctionCount; i++) {
+            final var lifetime = stormWindow.plus(
+                endingSpread.multipliedBy(i).dividedBy(auctionCount)
+            );
+            final var item = new Item(
+                new Item.ID("load-" + i),
+                "category-" + (i % 16)
+            );
+            final var auction = system.createAuction(item, owner, lifetime);
+            auction.follow(lagProbe);
+            auctions.add(auction);
+            plannedEnds[i] = auction.endTime();
+        }
+        final var popularity = zipf(auctionCount, zipfExponent);
+        // Popularity is independent of when an auction ends.
+        final var byRank = new ArrayList<Integer>(auctionCount);
+        for (var i = 0; i < auctionCount; i++) byRank.add(i);
+        Collections.shuffle(byRank, new Random(auctionCount));
+
+        final var accepted = new LongAdder();
+        final var rejected = new LongAdder();
+        final var late = new LongAdder();
+        final var rejectionLatency = new LatencyRecorder(1 << 16);
+        final var startNanos = java.lang.System.nanoTime();
+        final var deadline = startNanos + duration.toNanos();
+
+        final var workers = new Thread[threads];
+        for (var t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                final var random = ThreadLocalRandom.current();
+                while (java.lang.System.nanoTime() < deadline) {
+                    final var now = Instant.now();
+                    final var from = firstEndingAfter(
+                        plannedEnds,
+                        now.minus(stormWindow)
+                    );
+                    final var to = firstEndingAfter(
+                        plannedEnds,
+                        now.plus(stormWindow)
+                    );
+                    final var sniping =
+                        from < to && random.nextDouble() < snipeShare;
+                    final var index = sniping
+                        ? from + random.nextInt(to - from)
+                        : byRank.get(nextAuction(popularity, random));
+                    // Background bidders leave closing auctions to snipers;
+                    // otherwise they would keep extending them forever.
+                    if (!sniping && index < to) {
+                        LockSupport.parkNanos(thinkTime.toNanos());
+                        continue;
+                    }
+                    final var auction = auctions.get(index);
+                    final var bidder = bidders.get(
+                        random.nextInt(bidders.size())
+                    );
+                    final var floor = Math.max(
+                        auction.currentPriceCents(),
+                        auction.minPriceCents()
+                    );
+                    final var amount = floor + 1 + random.nextInt(100);
+                    final var sent = java.lang.System.nanoTime();
+                    try {
+                        if (system.placeBid(auction, bidder, amount).join()) {
+                            accepted.increment();
+                        } else {
+                            rejected.increment();
+                            rejectionLatency.record(
+                                Duration.ofNanos(
+                                    java.lang.System.nanoTime() - sent
+                                )
+                            );
+                        }
+                    } catch (CompletionException ce) {
+                        // The auction ended before the bid reached its shard.
+                        late.increment();
+                    }
+                    if (!sniping) LockSupport.parkNanos(thinkTime.toNanos());
+                }
+            });
+            workers[t].start();
+        }
+        for (var worker : workers) worker.join();
+
+        final var seconds =
+            (java.lang.System.nanoTime() - startNanos) / 1_000_000_000.0;
+        var ended = 0;
+        var extended = 0;
+        for (var i = 0; i < auctionCount; i++) {
+            final var auction = auctions.get(i);
+            if (auction.isEnded()) ended++;
+            if (auction.endTime().isAfter(plannedEnds[i])) extended++;
+        }
+        return new Report(
+            accepted.sum() / seconds,
+            rejected.sum() / seconds,
+            late.sum(),
+            ended,
+            extended,
+            rejectionLatency.percentile(0.50),
+            rejectionLatency.percentile(0.99),
+            notificationLag.percentile(0.50),
+            notificationLag.percentile(0.99)
+        );
+    }
+
+    // Runs against a throwaway journal so one run never replays another.
+    public static void main(String[] args)
+        throws IOException, InterruptedException {
+        final var journalDirectory = Files.createTempDirectory("auction-load");
+        try (final var system = new System(journalDirectory)) {
+            final var generator = new SnipingLoadGenerator(
+                system,
+                10_000,
+                100_000,
+                1.1
+            );
+            final var report = generator.run(
+                Runtime.getRuntime().availableProcessors() * 4,
+                Duration.ofSeconds(90),
+                Duration.ofSeconds(40),
+                Duration.ofSeconds(5),
+                Duration.ofMillis(5),
+                0.9
+            );
+            java.lang.System.out.println(report);
+        } finally {
+            deleteRecursively(journalDirectory);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (var path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    // Index of the first auction whose scheduled end is after the instant;
+    // auctions are created in end-time order.
+    private static int firstEndingAfter(Instant[] plannedEnds, Instant at) {
+        var low = 0;
+        var high = plannedEnds.length;
+        while (low < high) {
+            final var mid = (low + high) >>> 1;
+            if (plannedEnds[mid].isAfter(at)) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+
+    // Cumulative Zipf distribution: rank r is drawn with weight 1/r^s.
+    private static double[] zipf(int size, double exponent) {
+        final var popularity = new double[size];
+        var total = 0.0;
+        for (var rank = 1; rank <= size; rank++) {
+            total += 1.0 / Math.pow(rank, exponent);
+            popularity[rank - 1] = total;
+        }
+        for (var i = 0; i < size; i++) popularity[i] /= total;
+        return popularity;
+    }
+
+    private static int nextAuction(
+        double[] popularity,
+        ThreadLocalRandom random
+    ) {
+        final var index = Arrays.binarySearch(popularity, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, popularity.length - 1);
+    }
+
+    public record Report(
+        double acceptedBidsPerSecond,
+        double rejectedBidsPerSecond,
+        long lateBids,
+        int auctionsEnded,
+        int auctionsExtended,
+        Duration rejectionLatencyP50,
+        Duration rejectionLatencyP99,
+        Duration notificationLagP50,
+        Duration notificationLagP99
+    ) {}
+
+    // Fixed-size reservoir so recording never allocates or blocks writers.
+    private static class LatencyRecorder {
+
+        private final AtomicLongArray samples;
+        private final AtomicLong recorded;
+
+        LatencyRecorder(int capacity) {
+            this.samples = new AtomicLongArray(capacity);
+            this.recorded = new AtomicLong();
+        }
+
+        void record(Duration latency) {
+            final var n = recorded.getAndIncrement();
+            final var slot = n < samples.length()
+                ? n
+                : ThreadLocalRandom.current().nextLong(n + 1);
+            if (slot < samples.length()) {
+                samples.set((int) slot, latency.toNanos());
+            }
+        }
+
+        Duration percentile(double p) {
+            final var size = (int) Math.min(recorded.get(), samples.length());
+            if (size == 0) return Duration.ZERO;
+            final var sorted = new long[size];
+            for (var i = 0; i < size; i++) sorted[i] = samples.get(i);
+            Arrays.sort(sorted);
+            return Duration.ofNanos(sorted[(int) Math.ceil(p * size) - 1]);
+        }
+    }
 }
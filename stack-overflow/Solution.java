@@ -9,6 +9,15 @@ public class User {
     public User(long id, String name) {
         this.id = id;
         this.name = name;
+        this.reputation = new Reputation();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Reputation getReputation() {
+        return reputation;
     }
 
     public Question postQuestion(String title, String body) {
@@ -18,8 +27,8 @@ public class User {
     }
 
     public Answer postAnswer(Question question, String answerBody) {
-        final var answer = new TextAnswer(answerBody);
-        question.addAnswer(answer);
+        final var answer = new TextAnswer(this, answerBody);
+        QuestionManager.getInstance().addAnswer(question, answer);
         return answer;
     }
 
@@ -37,13 +46,23 @@ public class User {
         question.acceptAnswer(this, answer);
     }
 
+    // Adjustments are applied asynchronously by the ReputationLedger; the
+    // returned Reputation reflects the last published snapshot.
     public Reputation increaseReputation(int points) {
-        reputation.increase(points);
+        ReputationLedger.getInstance().record(
+            this,
+            points,
+            ReputationLedger.Reason.ADJUSTMENT
+        );
         return reputation;
     }
 
     public Reputation decreaseReputation(int points) {
-        reputation.decrease(points);
+        ReputationLedger.getInstance().record(
+            this,
+            -points,
+            ReputationLedger.Reason.ADJUSTMENT
+        );
         return reputation;
     }
 }
@@ -59,21 +78,1037 @@ public class QuestionManager {
         return HOLDER.INSTANCE;
     }
 
-    private final ConcurrentMap<Long, Question> questions;
+    private static final int SHARD_COUNT = 64;
+
+    private final IdGenerator ids;
+    private final List<ConcurrentMap<Long, Question>> shards;
+    private final SearchIndex searchIndex;
+    private final ConcurrentSkipListMap<ScoreKey, Question> questionsByScore;
+    private final HotRanking hotRanking;
+    private final PageCache pageCache;
 
     private QuestionManager() {
-        this.questions = new ConcurrentHashMap<>();
+        this.ids = new IdGenerator(1024);
+        this.searchIndex = new SearchIndex();
+        this.questionsByScore = new ConcurrentSkipListMap<>();
+        this.hotRanking = new HotRanking(100);
+        this.pageCache = new PageCache(256L << 20);
+        this.shards = new ArrayList<>(SHARD_COUNT);
+        for (var i = 0; i < SHARD_COUNT; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
     }
 
     public Question createQuestion(Question question) {
-        final var id = newId(question);
+        final var id = ids.next();
         question.setId(id);
-        questions.put(question.getId(), question);
+        shardOf(id).put(id, question);
+        searchIndex.add(id, question.getTitle() + " " + question.getBody());
+        questionsByScore.put(new ScoreKey(0, id), question);
+        hotRanking.update(question);
         return question;
     }
 
-    private long newId(Question question) {
-        return questions.size() + 1L;
+    public void addTag(Question question, Tag tag) {
+        question.addTag(tag);
+        hotRanking.tag(question, tag);
+    }
+
+    public List<Question> getHotQuestions(int limit) {
+        return hotRanking.frontPage(limit);
+    }
+
+    public List<Question> getHotQuestions(Tag tag, int limit) {
+        return hotRanking.tagPage(tag, limit);
+    }
+
+    public List<Question> getQuestionsByTag(Tag tag) {
+        final var results = new ArrayList<Question>();
+        for (var id : hotRanking.questionIds(tag)) {
+            getQuestion(id).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    public List<Question> getTopQuestions(int limit) {
+        return questionsByScore.values().stream().limit(limit).toList();
+    }
+
+    void reindexScore(Question question, long previousScore, long newScore) {
+        if (previousScore == newScore) return;
+        final var id = question.getId();
+        questionsByScore.remove(new ScoreKey(previousScore, id));
+        questionsByScore.put(new ScoreKey(newScore, id), question);
+        hotRanking.update(question);
+    }
+
+    public void addAnswer(Question question, Answer answer) {
+        question.addAnswer(answer);
+        hotRanking.update(question);
+        if (answer instanceof TextAnswer text) {
+            searchIndex.add(question.getId(), text.getText());
+        }
+    }
+
+    public List<Question> search(String query, int limit) {
+        final var results = new ArrayList<Question>(limit);
+        for (var id : searchIndex.search(query, limit)) {
+            getQuestion(id).ifPresent(results::add);
+        }
+        return results;
+    }
+
+    public Optional<Question> getQuestion(long id) {
+        return Optional.ofNullable(shardOf(id).get(id));
+    }
+
+    public Optional<String> renderQuestionPage(long id) {
+        return getQuestion(id).map(pageCache::get);
+    }
+
+    private ConcurrentMap<Long, Question> shardOf(long id) {
+        return shards.get((int) (id & (SHARD_COUNT - 1)));
+    }
+}
+
+public class IdGenerator {
+
+    private final int blockSize;
+    private final AtomicLong nextBlockStart;
+    private final ThreadLocal<long[]> block;
+
+    public IdGenerator(int blockSize) {
+        this.blockSize = blockSize;
+        this.nextBlockStart = new AtomicLong(1L);
+        // {next id, end of block (exclusive)}
+        this.block = ThreadLocal.withInitial(() -> new long[] { 0L, 0L });
+    }
+
+    public long next() {
+        final var current = block.get();
+        if (current[0] == current[1]) {
+            current[0] = nextBlockStart.getAndAdd(blockSize);
+            current[1] = current[0] + blockSize;
+        }
+        return current[0]++;
+    }
+}
+
+public class SearchIndex {
+
+    private static final int BUFFER_POSTINGS = 1 << 16;
+    // Sealed segments start at tier 0 and merging MERGE_FACTOR segments of
+    // one tier yields one of the next, so each posting is rewritten about
+    // log(n) times instead of on every merge.
+    private static final int MERGE_FACTOR = 4;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final String NON_WORD = "[^\\p{L}\\p{N}]+";
+
+    private final AtomicReference<State> state;
+    private final ReadWriteLock sealLock;
+    private final AtomicInteger buffered;
+    private final ConcurrentMap<Long, Integer> docLengths;
+    private final LongAdder totalLength;
+    private final ExecutorService merger;
+
+    public SearchIndex() {
+        this.state = new AtomicReference<>(
+            new State(List.of(), new ConcurrentHashMap<>())
+        );
+        this.sealLock = new ReentrantReadWriteLock();
+        this.buffered = new AtomicInteger();
+        this.docLengths = new ConcurrentHashMap<>();
+        this.totalLength = new LongAdder();
+        this.merger = Executors.newSingleThreadExecutor(task -> {
+            final var thread = new Thread(task, "search-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Adds text to a document; text added later to the same id (answers)
+    // extends that document rather than replacing it.
+    public void add(long docId, String text) {
+        final var terms = new HashMap<String, Integer>();
+        for (var token : tokenize(text)) terms.merge(token, 1, Integer::sum);
+        if (terms.isEmpty()) return;
+
+        final var length = terms.values().stream().mapToInt(i -> i).sum();
+        docLengths.merge(docId, length, Integer::sum);
+        totalLength.add(length);
+
+        sealLock.readLock().lock();
+        try {
+            final var buffer = state.get().buffer();
+            for (var entry : terms.entrySet()) {
+                buffer
+                    .computeIfAbsent(entry.getKey(), t ->
+                        new ConcurrentHashMap<>()
+                    )
+                    .merge(docId, entry.getValue(), Integer::sum);
+            }
+        } finally {
+            sealLock.readLock().unlock();
+        }
+        if (buffered.addAndGet(terms.size()) >= BUFFER_POSTINGS) seal();
+    }
+
+    public List<Long> search(String query, int limit) {
+        final var snapshot = state.get();
+        final var documents = docLengths.size();
+        if (documents == 0) return List.of();
+        final var averageLength = (double) totalLength.sum() / documents;
+
+        final var scores = new Scores();
+        for (var term : new HashSet<>(tokenize(query))) {
+            final var lists = postingLists(snapshot, term);
+            if (lists.isEmpty()) continue;
+
+            var df = 0;
+            for (var cursor = new TermCursor(lists); cursor.next(); ) df++;
+            final var idf = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            for (var cursor = new TermCursor(lists); cursor.next(); ) {
+                final var tf = cursor.tf();
+                final var length = docLengths.getOrDefault(cursor.doc(), 0);
+                final var norm = K1 * (1 - B + B * length / averageLength);
+                scores.add(cursor.doc(), idf * tf * (K1 + 1) / (tf + norm));
+            }
+        }
+        return scores.top(limit);
+    }
+
+    // Every encoded postings list for a term; the unsealed buffer is
+    // encoded on the fly, which costs at most one buffer's worth.
+    private static List<byte[]> postingLists(State snapshot, String term) {
+        final var lists = new ArrayList<byte[]>();
+        for (var segment : snapshot.segments()) {
+            final var bytes = segment.postings.get(term);
+            if (bytes != null) lists.add(bytes);
+        }
+        final var pending = snapshot.buffer().get(term);
+        if (pending != null && !pending.isEmpty()) {
+            lists.add(Segment.encode(new TreeMap<>(pending)));
+        }
+        return lists;
+    }
+
+    private void seal() {
+        sealLock.writeLock().lock();
+        try {
+            if (buffered.get() < BUFFER_POSTINGS) return;
+            final var segment = Segment.of(state.get().buffer());
+            // The merger may swap segments meanwhile; the buffer is ours.
+            state.updateAndGet(current ->
+                new State(
+                    append(current.segments(), segment),
+                    new ConcurrentHashMap<>()
+                )
+            );
+            buffered.set(0);
+        } finally {
+            sealLock.writeLock().unlock();
+        }
+        if (fullTier(state.get().segments()) != null) {
+            merger.execute(this::merge);
+        }
+    }
+
+    private void merge() {
+        while (true) {
+            final var tier = fullTier(state.get().segments());
+            if (tier == null) return;
+            final var merged = Segment.merge(tier);
+            state.updateAndGet(current -> {
+                final var remaining = new ArrayList<Segment>();
+                for (var segment : current.segments()) {
+                    if (!tier.contains(segment)) remaining.add(segment);
+                }
+                remaining.add(merged);
+                return new State(List.copyOf(remaining), current.buffer());
+            });
+        }
+    }
+
+    // The lowest tier that has filled up, or null if none has.
+    private static List<Segment> fullTier(List<Segment> segments) {
+        final var tiers = new TreeMap<Integer, List<Segment>>();
+        for (var segment : segments) {
+            tiers
+                .computeIfAbsent(segment.tier(), t -> new ArrayList<>())
+                .add(segment);
+        }
+        for (var tier : tiers.values()) {
+            if (tier.size() >= MERGE_FACTOR) return tier;
+        }
+        return null;
+    }
+
+    private static List<Segment> append(List<Segment> segments, Segment next) {
+        final var appended = new ArrayList<>(segments);
+        appended.add(next);
+        return List.copyOf(appended);
+    }
+
+    private static List<String> tokenize(String text) {
+        final var tokens = new ArrayList<String>();
+        final var words = text.toLowerCase(Locale.ROOT).split(NON_WORD);
+        for (var token : words) {
+            if (token.length() > 1) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    // Walks a term's postings lists together in doc id order, summing the
+    // frequencies of a document whose text landed in several segments.
+    private static final class TermCursor {
+
+        private final byte[][] lists;
+        private final int[][] positions;
+        private final long[] heads;
+        private final int[] headTfs;
+        private long doc;
+        private int tf;
+
+        TermCursor(List<byte[]> lists) {
+            this.lists = lists.toArray(new byte[0][]);
+            this.positions = new int[this.lists.length][1];
+            this.heads = new long[this.lists.length];
+            this.headTfs = new int[this.lists.length];
+            for (var i = 0; i < this.lists.length; i++) advance(i);
+        }
+
+        boolean next() {
+            var min = Long.MAX_VALUE;
+            for (var head : heads) min = Math.min(min, head);
+            if (min == Long.MAX_VALUE) return false;
+            doc = min;
+            tf = 0;
+            for (var i = 0; i < heads.length; i++) {
+                if (heads[i] != min) continue;
+                tf += headTfs[i];
+                advance(i);
+            }
+            return true;
+        }
+
+        long doc() {
+            return doc;
+        }
+
+        int tf() {
+            return tf;
+        }
+
+        private void advance(int list) {
+            final var bytes = lists[list];
+            final var position = positions[list];
+            if (position[0] == bytes.length) {
+                heads[list] = Long.MAX_VALUE;
+                return;
+            }
+            heads[list] += Segment.readVarint(bytes, position);
+            headTfs[list] = (int) Segment.readVarint(bytes, position);
+        }
+    }
+
+    // Doc id to score, open addressing over parallel arrays so scoring a
+    // common term allocates nothing per posting.
+    private static final class Scores {
+
+        private long[] docs = new long[64];
+        private double[] values = new double[64];
+        private boolean[] used = new boolean[64];
+        private int size;
+
+        void add(long doc, double score) {
+            if (size * 2 >= docs.length) grow();
+            final var slot = slotOf(doc, docs, used);
+            if (!used[slot]) {
+                used[slot] = true;
+                docs[slot] = doc;
+                size++;
+            }
+            values[slot] += score;
+        }
+
+        // The highest scores first, ties to the lower doc id, picked with a
+        // heap of size limit whose root is the weakest entry kept.
+        List<Long> top(int limit) {
+            if (limit <= 0) return List.of();
+            final var heapDocs = new long[limit];
+            final var heapScores = new double[limit];
+            var n = 0;
+            for (var slot = 0; slot < docs.length; slot++) {
+                if (!used[slot]) continue;
+                if (n < limit) {
+                    heapDocs[n] = docs[slot];
+                    heapScores[n] = values[slot];
+                    siftUp(heapDocs, heapScores, n++);
+                } else if (
+                    ranksBelow(
+                        heapScores[0],
+                        heapDocs[0],
+                        values[slot],
+                        docs[slot]
+                    )
+                ) {
+                    heapDocs[0] = docs[slot];
+                    heapScores[0] = values[slot];
+                    siftDown(heapDocs, heapScores, n);
+                }
+            }
+            final var results = new Long[n];
+            while (n > 0) {
+                results[--n] = heapDocs[0];
+                heapDocs[0] = heapDocs[n];
+                heapScores[0] = heapScores[n];
+                siftDown(heapDocs, heapScores, n);
+            }
+            return Arrays.asList(results);
+        }
+
+        private void grow() {
+            final var oldDocs = docs;
+            final var oldValues = values;
+            final var oldUsed = used;
+            docs = new long[oldDocs.length * 2];
+            values = new double[docs.length];
+            used = new boolean[docs.length];
+            for (var i = 0; i < oldDocs.length; i++) {
+                if (!oldUsed[i]) continue;
+                final var slot = slotOf(oldDocs[i], docs, used);
+                used[slot] = true;
+                docs[slot] = oldDocs[i];
+                values[slot] = oldValues[i];
+            }
+        }
+
+        private static int slotOf(long doc, long[] docs, boolean[] used) {
+            final var mask = docs.length - 1;
+            var slot = (int) ((doc * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (used[slot] && docs[slot] != doc) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        private static void siftUp(long[] docs, double[] scores, int at) {
+            while (at > 0) {
+                final var parent = (at - 1) >>> 1;
+                if (!ranksBelow(scores, docs, at, parent)) return;
+                swap(docs, scores, at, parent);
+                at = parent;
+            }
+        }
+
+        private static void siftDown(long[] docs, double[] scores, int size) {
+            var at = 0;
+            while (true) {
+                final var left = 2 * at + 1;
+                if (left >= size) return;
+                final var right = left + 1;
+                final var child =
+                    right < size && ranksBelow(scores, docs, right, left)
+                        ? right
+                        : left;
+                if (!ranksBelow(scores, docs, child, at)) return;
+                swap(docs, scores, at, child);
+                at = child;
+            }
+        }
+
+        private static boolean ranksBelow(
+            double[] scores,
+            long[] docs,
+            int i,
+            int j
+        ) {
+            return ranksBelow(scores[i], docs[i], scores[j], docs[j]);
+        }
+
+        private static boolean ranksBelow(
+            double score,
+            long doc,
+            double otherScore,
+            long otherDoc
+        ) {
+            return (
+                score < otherScore || (score == otherScore && doc > otherDoc)
+            );
+        }
+
+        private static void swap(long[] docs, double[] scores, int i, int j) {
+            final var doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            final var score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+
+    private record State(
+        List<Segment> segments,
+        ConcurrentMap<String, ConcurrentMap<Long, Integer>> buffer
+    ) {}
+
+    // Immutable postings: per term, (doc id delta, term frequency) pairs
+    // sorted by doc id, each as an unsigned LEB128 varint.
+    private static final class Segment {
+
+        private final Map<String, byte[]> postings;
+        private final int tier;
+
+        private Segment(Map<String, byte[]> postings, int tier) {
+            this.postings = postings;
+            this.tier = tier;
+        }
+
+        int tier() {
+            return tier;
+        }
+
+        static Segment of(Map<String, ? extends Map<Long, Integer>> terms) {
+            final var postings = new HashMap<String, byte[]>(terms.size());
+            for (var entry : terms.entrySet()) {
+                postings.put(
+                    entry.getKey(),
+                    encode(new TreeMap<>(entry.getValue()))
+                );
+            }
+            return new Segment(postings, 0);
+        }
+
+        static Segment merge(List<Segment> segments) {
+            final var terms = new HashMap<String, TreeMap<Long, Integer>>();
+            for (var segment : segments) {
+                for (var term : segment.postings.keySet()) {
+                    segment.decode(
+                        term,
+                        terms.computeIfAbsent(term, t -> new TreeMap<>())
+                    );
+                }
+            }
+            final var postings = new HashMap<String, byte[]>(terms.size());
+            for (var entry : terms.entrySet()) {
+                postings.put(entry.getKey(), encode(entry.getValue()));
+            }
+            return new Segment(postings, segments.get(0).tier() + 1);
+        }
+
+        void decode(String term, Map<Long, Integer> into) {
+            final var bytes = postings.get(term);
+            if (bytes == null) return;
+            final var position = new int[1];
+            var docId = 0L;
+            while (position[0] < bytes.length) {
+                docId += readVarint(bytes, position);
+                final var tf = (int) readVarint(bytes, position);
+                into.merge(docId, tf, Integer::sum);
+            }
+        }
+
+        private static byte[] encode(SortedMap<Long, Integer> docs) {
+            final var out = new ByteArrayOutputStream(docs.size() * 3);
+            var previous = 0L;
+            for (var entry : docs.entrySet()) {
+                writeVarint(out, entry.getKey() - previous);
+                writeVarint(out, entry.getValue());
+                previous = entry.getKey();
+            }
+            return out.toByteArray();
+        }
+
+        private static void writeVarint(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        private static long readVarint(byte[] bytes, int[] position) {
+            var value = 0L;
+            var shift = 0;
+            byte b;
+            do {
+                b = bytes[position[0]++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
+
+public class HotRanking {
+
+    // A question this many seconds newer needs 10x the votes to outrank.
+    private static final double DECAY_SECONDS = 45_000;
+
+    private final int capacity;
+    private final ConcurrentMap<Tag, Set<Long>> questionsByTag;
+    private final ConcurrentMap<Long, HotKey> keysByQuestion;
+    private final ConcurrentMap<Long, Question> questions;
+    private final TopK frontPage;
+    private final ConcurrentMap<Tag, TopK> tagPages;
+
+    public HotRanking(int capacity) {
+        this.capacity = capacity;
+        this.questionsByTag = new ConcurrentHashMap<>();
+        this.keysByQuestion = new ConcurrentHashMap<>();
+        this.questions = new ConcurrentHashMap<>();
+        this.frontPage = new TopK(capacity, () ->
+            keysByQuestion.values().stream()
+        );
+        this.tagPages = new ConcurrentHashMap<>();
+    }
+
+    public void tag(Question question, Tag tag) {
+        questionsByTag
+            .computeIfAbsent(tag, t -> ConcurrentHashMap.newKeySet())
+            .add(question.getId());
+        synchronized (question) {
+            final var key = keysByQuestion.get(question.getId());
+            if (key != null) tagPage(tag).replace(null, key, question);
+        }
+    }
+
+    // Age enters as a constant offset from the question's creation time,
+    // so a ranking never needs rescoring just because time has passed.
+    public void update(Question question) {
+        final var activity = Math.max(
+            1,
+            question.getScore() + 2L * question.getAnswerCount()
+        );
+        final var hot =
+            Math.log10(activity) +
+            question.getCreatedAt().getEpochSecond() / DECAY_SECONDS;
+        final var key = new HotKey(hot, question.getId());
+
+        synchronized (question) {
+            questions.putIfAbsent(question.getId(), question);
+            final var previous = keysByQuestion.put(question.getId(), key);
+            frontPage.replace(previous, key, question);
+            for (var tag : question.getTags()) {
+                tagPage(tag).replace(previous, key, question);
+            }
+        }
+    }
+
+    public List<Question> frontPage(int limit) {
+        return frontPage.top(limit);
+    }
+
+    public List<Question> tagPage(Tag tag, int limit) {
+        final var page = tagPages.get(tag);
+        return page == null ? List.of() : page.top(limit);
+    }
+
+    public Set<Long> questionIds(Tag tag) {
+        return Collections.unmodifiableSet(
+            questionsByTag.getOrDefault(tag, Set.of())
+        );
+    }
+
+    private TopK tagPage(Tag tag) {
+        return tagPages.computeIfAbsent(tag, t ->
+            new TopK(capacity, () ->
+                questionsByTag
+                    .getOrDefault(t, Set.of())
+                    .stream()
+                    .map(keysByQuestion::get)
+                    .filter(Objects::nonNull)
+            )
+        );
+    }
+
+    private record HotKey(double hot, long questionId)
+        implements Comparable<HotKey> {
+        @Override
+        public int compareTo(HotKey other) {
+            final var byHot = Double.compare(other.hot, hot);
+            return byHot != 0
+                ? byHot
+                : Long.compare(questionId, other.questionId);
+        }
+    }
+
+    // Keeps up to twice the page size so a listed question can drop out
+    // without the page losing its tail. Every retained key outranks every
+    // question left out; once drops eat the slack below the page size the
+    // retained set is rebuilt from all current keys.
+    private class TopK {
+
+        private final int capacity;
+        private final Supplier<Stream<HotKey>> source;
+        private volatile ConcurrentSkipListMap<HotKey, Question> entries;
+        // Guarded by this, as are all writes to entries.
+        private int size;
+        // Best-ranked key left out since the last rebuild, or null if none.
+        private HotKey excludedBest;
+
+        TopK(int capacity, Supplier<Stream<HotKey>> source) {
+            this.capacity = capacity;
+            this.source = source;
+            this.entries = new ConcurrentSkipListMap<>();
+        }
+
+        synchronized void replace(
+            HotKey previous,
+            HotKey key,
+            Question question
+        ) {
+            if (previous != null && entries.remove(previous) != null) size--;
+            if (excludedBest != null && key.compareTo(excludedBest) > 0) {
+                if (size < capacity) refill();
+                return;
+            }
+            if (entries.put(key, question) == null) size++;
+            while (size > 2 * capacity) {
+                exclude(entries.pollLastEntry().getKey());
+                size--;
+            }
+            if (size < capacity && excludedBest != null) refill();
+        }
+
+        List<Question> top(int limit) {
+            return entries
+                .values()
+                .stream()
+                .limit(Math.min(limit, capacity))
+                .toList();
+        }
+
+        private void exclude(HotKey key) {
+            if (excludedBest == null || key.compareTo(excludedBest) < 0) {
+                excludedBest = key;
+            }
+        }
+
+        private void refill() {
+            final var keys = source.get().sorted().toList();
+            final var rebuilt = new ConcurrentSkipListMap<HotKey, Question>();
+            excludedBest = null;
+            for (var key : keys) {
+                final var question = questions.get(key.questionId());
+                if (question == null) continue;
+                if (rebuilt.size() == 2 * capacity) {
+                    excludedBest = key;
+                    break;
+                }
+                rebuilt.put(key, question);
+            }
+            size = rebuilt.size();
+            entries = rebuilt;
+        }
+    }
+}
+
+public class PageCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int READ_BUFFERS = 16;
+    private static final String ACCEPTED_OPEN = "<div class=\"accepted\">";
+
+    private final long windowMaxBytes;
+    private final long mainMaxBytes;
+    private final ConcurrentMap<Long, Entry> entries;
+    private final ConcurrentMap<Long, CompletableFuture<Entry>> loading;
+    private final FrequencySketch sketch;
+    private final ReadBuffer[] readBuffers;
+    private final ReentrantLock policyLock;
+    // Both access-ordered and guarded by policyLock.
+    private final LinkedHashMap<Long, Entry> window;
+    private final LinkedHashMap<Long, Entry> main;
+    private long windowBytes;
+    private long mainBytes;
+
+    public PageCache(long maxBytes) {
+        this.windowMaxBytes = Math.max(1, maxBytes / 100);
+        this.mainMaxBytes = maxBytes - windowMaxBytes;
+        this.entries = new ConcurrentHashMap<>();
+        this.loading = new ConcurrentHashMap<>();
+        this.sketch = new FrequencySketch(1 << 16);
+        this.readBuffers = new ReadBuffer[READ_BUFFERS];
+        for (var i = 0; i < READ_BUFFERS; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+        this.policyLock = new ReentrantLock();
+        this.window = new LinkedHashMap<>(16, 0.75f, true);
+        this.main = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public String get(Question question) {
+        final var id = question.getId();
+        recordRead(id);
+        final var cached = entries.get(id);
+        if (cached == null) return load(question).page();
+        if (cached.version() == question.getVersion()) return cached.page();
+        // Stale: one caller rebuilds while the rest keep serving it.
+        if (!cached.refreshing().compareAndSet(false, true)) {
+            return cached.page();
+        }
+        try {
+            final var rebuilt = render(question);
+            admit(rebuilt);
+            return rebuilt.page();
+        } finally {
+            cached.refreshing().set(false);
+        }
+    }
+
+    private Entry load(Question question) {
+        final var id = question.getId();
+        final var pending = new CompletableFuture<Entry>();
+        final var inFlight = loading.putIfAbsent(id, pending);
+        if (inFlight != null) return inFlight.join();
+        try {
+            final var entry = render(question);
+            admit(entry);
+            pending.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(id, pending);
+        }
+    }
+
+    private Entry render(Question question) {
+        final var version = question.getVersion();
+        final var page = new StringBuilder()
+            .append("<h1>")
+            .append(escape(question.getTitle()))
+            .append("</h1><p>")
+            .append(escape(question.getBody()))
+            .append("</p><span class=\"score\">")
+            .append(question.getFlushedScore())
+            .append("</span>");
+        appendComments(page, question.getComments(0, Integer.MAX_VALUE));
+        final var accepted = question
+            .getAcceptedAnswer()
+            .map(AcceptedAnswer::getAnswer)
+            .orElse(null);
+        for (var answer : question.getAnswers(0, Integer.MAX_VALUE)) {
+            final var text = answer instanceof TextAnswer textAnswer
+                ? textAnswer.getText()
+                : "";
+            page
+                .append(answer == accepted ? ACCEPTED_OPEN : "<div>")
+                .append(escape(text))
+                .append("<span class=\"score\">")
+                .append(answer.getFlushedScore())
+                .append("</span>");
+            appendComments(page, answer.getComments(0, Integer.MAX_VALUE));
+            page.append("</div>");
+        }
+        final var rendered = page.toString();
+        return new Entry(
+            question.getId(),
+            version,
+            rendered,
+            ENTRY_OVERHEAD_BYTES + 2L * rendered.length(),
+            new AtomicBoolean()
+        );
+    }
+
+    private static void appendComments(
+        StringBuilder page,
+        List<Comment> comments
+    ) {
+        for (var comment : comments) {
+            page
+                .append("<small>")
+                .append(escape(comment.getText()))
+                .append("</small>");
+        }
+    }
+
+    // Every user-supplied string goes through here before it reaches HTML.
+    static String escape(String text) {
+        if (text == null) return "";
+        final var escaped = new StringBuilder(text.length() + 16);
+        for (var i = 0; i < text.length(); i++) {
+            final var c = text.charAt(i);
+            switch (c) {
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&#39;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    // A read lands in its thread's stripe; only a full stripe tries the
+    // policy lock to replay the buffered reads. A read dropped while the
+    // lock is busy just leaves its entry slightly colder.
+    private void recordRead(long id) {
+        final var stripe = (int) Thread.currentThread().threadId();
+        if (readBuffers[stripe & (READ_BUFFERS - 1)].offer(id)) return;
+        if (!policyLock.tryLock()) return;
+        try {
+            drainReads();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // Caller holds policyLock, which owns the sketch and both regions.
+    private void drainReads() {
+        for (var buffer : readBuffers) {
+            buffer.drainTo(id -> {
+                sketch.increment(id);
+                if (window.get(id) == null) main.get(id);
+            });
+        }
+    }
+
+    private void admit(Entry entry) {
+        policyLock.lock();
+        try {
+            drainReads();
+            final var replaced = entries.put(entry.id(), entry);
+            if (replaced != null && main.containsKey(entry.id())) {
+                main.put(entry.id(), entry);
+                mainBytes += entry.bytes() - replaced.bytes();
+                evictMain();
+                return;
+            }
+            final var previous = window.remove(entry.id());
+            if (previous != null) windowBytes -= previous.bytes();
+            window.put(entry.id(), entry);
+            windowBytes += entry.bytes();
+            while (windowBytes > windowMaxBytes && !window.isEmpty()) {
+                final var candidate = removeEldest(window);
+                windowBytes -= candidate.bytes();
+                offerToMain(candidate);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    // TinyLFU admission: a window evictee only displaces main-region
+    // victims that have been requested less often than it.
+    private void offerToMain(Entry candidate) {
+        while (
+            mainBytes + candidate.bytes() > mainMaxBytes && !main.isEmpty()
+        ) {
+            final var victim = main.keySet().iterator().next();
+            if (sketch.frequency(candidate.id()) <= sketch.frequency(victim)) {
+                entries.remove(candidate.id(), candidate);
+                return;
+            }
+            mainBytes -= main.remove(victim).bytes();
+            entries.remove(victim);
+        }
+        if (candidate.bytes() > mainMaxBytes) {
+            entries.remove(candidate.id(), candidate);
+            return;
+        }
+        main.put(candidate.id(), candidate);
+        mainBytes += candidate.bytes();
+    }
+
+    private void evictMain() {
+        while (mainBytes > mainMaxBytes && !main.isEmpty()) {
+            final var victim = removeEldest(main);
+            mainBytes -= victim.bytes();
+            entries.remove(victim.id(), victim);
+        }
+    }
+
+    private static Entry removeEldest(LinkedHashMap<Long, Entry> region) {
+        final var eldest = region.entrySet().iterator();
+        final var entry = eldest.next().getValue();
+        eldest.remove();
+        return entry;
+    }
+
+    private record Entry(
+        long id,
+        long version,
+        String page,
+        long bytes,
+        AtomicBoolean refreshing
+    ) {}
+
+    // Lossy buffer of recent reads for one stripe of threads. Ids are
+    // stored plus one so a claimed but not yet written slot reads as empty.
+    private static final class ReadBuffer {
+
+        private static final int SIZE = 64;
+
+        private final AtomicLongArray slots = new AtomicLongArray(SIZE);
+        private final AtomicInteger writes = new AtomicInteger();
+
+        boolean offer(long id) {
+            if (writes.get() >= SIZE) return false;
+            final var slot = writes.getAndIncrement();
+            if (slot >= SIZE) return false;
+            slots.lazySet(slot, id + 1);
+            return true;
+        }
+
+        void drainTo(LongConsumer consumer) {
+            final var written = Math.min(writes.get(), SIZE);
+            for (var i = 0; i < written; i++) {
+                final var id = slots.getAndSet(i, 0);
+                if (id != 0) consumer.accept(id - 1);
+            }
+            writes.set(0);
+        }
+    }
+
+    // Count-min sketch of 4-bit-saturating counters, halved periodically so
+    // old popularity fades. Only touched under the cache's policy lock.
+    private static class FrequencySketch {
+
+        private static final int MAX_COUNT = 15;
+
+        private final int[][] rows;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int width) {
+            this.rows = new int[4][width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * width;
+        }
+
+        void increment(long key) {
+            for (var row = 0; row < rows.length; row++) {
+                final var slot = indexOf(key, row);
+                if (rows[row][slot] < MAX_COUNT) rows[row][slot]++;
+            }
+            if (++additions == sampleSize) reset();
+        }
+
+        int frequency(long key) {
+            var min = MAX_COUNT;
+            for (var row = 0; row < rows.length; row++) {
+                min = Math.min(min, rows[row][indexOf(key, row)]);
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (var row : rows) {
+                for (var i = 0; i < row.length; i++) row[i] >>>= 1;
+            }
+            additions = 0;
+        }
+
+        private int indexOf(long key, int row) {
+            var hash = (key + row) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 32;
+            return (int) hash & mask;
+        }
     }
 }
 
@@ -83,6 +1118,93 @@ public interface Commentable {
 
 public interface Votable {
     public void vote(Vote vote);
+
+    public void flushScore();
+}
+
+public class ScoreCounter {
+
+    private final LongAdder votes;
+    private final AtomicBoolean dirty;
+    private volatile long flushed;
+
+    public ScoreCounter() {
+        this.votes = new LongAdder();
+        this.dirty = new AtomicBoolean();
+    }
+
+    // Returns true only for the vote that made the counter dirty, so a
+    // post is queued for flushing once per flush window.
+    public boolean add(int value) {
+        votes.add(value);
+        return !dirty.get() && dirty.compareAndSet(false, true);
+    }
+
+    public long get() {
+        return votes.sum();
+    }
+
+    public long getFlushed() {
+        return flushed;
+    }
+
+    // Called by the flusher only; returns the previously flushed score.
+    public long flush() {
+        dirty.set(false);
+        final var previous = flushed;
+        flushed = votes.sum();
+        return previous;
+    }
+}
+
+public record ScoreKey(long score, long id) implements Comparable<ScoreKey> {
+    @Override
+    public int compareTo(ScoreKey other) {
+        final var byScore = Long.compare(other.score, score);
+        return byScore != 0 ? byScore : Long.compare(id, other.id);
+    }
+}
+
+public class ScoreFlusher {
+
+    private static class HOLDER {
+
+        private static final ScoreFlusher INSTANCE = new ScoreFlusher(
+            Duration.ofSeconds(1)
+        );
+    }
+
+    public static ScoreFlusher getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private final Queue<Votable> dirty;
+    private final ScheduledExecutorService scheduler;
+
+    private ScoreFlusher(Duration interval) {
+        this.dirty = new ConcurrentLinkedQueue<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            final var thread = new Thread(task, "score-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(
+            this::flush,
+            interval.toMillis(),
+            interval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public void schedule(Votable votable) {
+        dirty.add(votable);
+    }
+
+    private void flush() {
+        for (Votable votable; (votable = dirty.poll()) != null; ) {
+            votable.flushScore();
+        }
+    }
 }
 
 public class Question implements Commentable, Votable {
@@ -91,22 +1213,28 @@ public class Question implements Commentable, Votable {
     private final User author;
     private String title;
     private String body;
-    private int score;
+    private final Instant createdAt;
+    private final ScoreCounter score;
     private final Set<Tag> tags;
-    private final List<Answer> answers;
-    private final List<Comment> comments;
-    private Optional<AcceptedAnswer> acceptedAnswer;
+    private final ChunkedList<Answer> answers;
+    private final ConcurrentSkipListMap<ScoreKey, Answer> answersByScore;
+    private final ChunkedList<Comment> comments;
+    private volatile Optional<AcceptedAnswer> acceptedAnswer;
+    private final AtomicLong version;
 
     public Question(Long id, User author, String title, String body) {
         this.id = id;
         this.author = author;
         this.title = title;
         this.body = body;
-        this.score = 0;
+        this.createdAt = Instant.now();
+        this.score = new ScoreCounter();
         this.tags = new ConcurrentSkipListSet<>();
-        this.answers = new CopyOnWriteArrayList<>();
-        this.comments = new CopyOnWriteArrayList<>();
+        this.answers = new ChunkedList<>();
+        this.answersByScore = new ConcurrentSkipListMap<>();
+        this.comments = new ChunkedList<>();
         this.acceptedAnswer = Optional.empty();
+        this.version = new AtomicLong();
     }
 
     public Question(User author, String title, String body) {
@@ -121,9 +1249,77 @@ public class Question implements Commentable, Votable {
         return id;
     }
 
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Set<Tag> getTags() {
+        return tags;
+    }
+
+    public int getAnswerCount() {
+        return answers.size();
+    }
+
+    public List<Answer> getAnswers(int offset, int limit) {
+        return answers.page(offset, limit);
+    }
+
+    public List<Comment> getComments(int offset, int limit) {
+        return comments.page(offset, limit);
+    }
+
+    public long getScore() {
+        return score.get();
+    }
+
+    // The score as of the last flush; this is what rendered pages show.
+    public long getFlushedScore() {
+        return score.getFlushed();
+    }
+
+    public Optional<AcceptedAnswer> getAcceptedAnswer() {
+        return acceptedAnswer;
+    }
+
+    // Bumped by every change that shows up on the rendered question page.
+    public long getVersion() {
+        return version.get();
+    }
+
+    void bumpVersion() {
+        version.incrementAndGet();
+    }
+
     @Override
     public void vote(Vote vote) {
-        this.score += vote.getValue();
+        if (score.add(vote.getValue())) {
+            ScoreFlusher.getInstance().schedule(this);
+        }
+        ReputationLedger.getInstance().recordVote(
+            author,
+            vote,
+            ReputationLedger.Reason.QUESTION_VOTE
+        );
+    }
+
+    @Override
+    public void flushScore() {
+        final var previous = score.flush();
+        if (previous != score.getFlushed()) bumpVersion();
+        QuestionManager.getInstance().reindexScore(
+            this,
+            previous,
+            score.getFlushed()
+        );
     }
 
     public void addTag(Tag tag) {
@@ -131,31 +1327,95 @@ public class Question implements Commentable, Votable {
     }
 
     public void addAnswer(Answer answer) {
+        answer.setQuestion(this);
         this.answers.add(answer);
+        bumpVersion();
+        this.answersByScore.put(new ScoreKey(0, answer.getId()), answer);
+    }
+
+    public List<Answer> getTopAnswers(int limit) {
+        return answersByScore.values().stream().limit(limit).toList();
+    }
+
+    void reindexAnswer(Answer answer, long previousScore, long newScore) {
+        if (previousScore == newScore) return;
+        answersByScore.remove(new ScoreKey(previousScore, answer.getId()));
+        answersByScore.put(new ScoreKey(newScore, answer.getId()), answer);
     }
 
     @Override
     public void addComment(Comment comment) {
         this.comments.add(comment);
+        bumpVersion();
     }
 
+    // Only the question's author may accept. Reputation moves only when the
+    // accepted answer changes: the award moves from the previous answer's
+    // author to the new one, and accepting your own answer earns nothing.
     public boolean acceptAnswer(User user, Answer answer) {
-        if (user.equals(user) && answers.contains(answer)) {
-            this.acceptedAnswer = Optional.of(new AcceptedAnswer(answer));
-            return true;
+        if (!user.equals(author) || answer.getQuestion() != this) {
+            return false;
         }
-        return false;
+        final Optional<AcceptedAnswer> previous;
+        synchronized (this) {
+            previous = acceptedAnswer;
+            if (
+                previous.isPresent() && previous.get().getAnswer() == answer
+            ) {
+                return true;
+            }
+            acceptedAnswer = Optional.of(new AcceptedAnswer(answer));
+        }
+        bumpVersion();
+        if (previous.isPresent()) award(previous.get().getAuthor(), -1);
+        award(answer.getAuthor(), 1);
+        return true;
+    }
+
+    private void award(User answerer, int sign) {
+        if (answerer == null || answerer.equals(author)) return;
+        final var ledger = ReputationLedger.getInstance();
+        final var reason = ReputationLedger.Reason.ANSWER_ACCEPTED;
+        ledger.record(answerer, 15 * sign, reason);
+        ledger.record(author, 2 * sign, reason);
     }
 }
 
 public abstract class Answer implements Commentable, Votable {
 
-    private int score;
-    private final List<Comment> comments;
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final long id;
+    private final User author;
+    private final ScoreCounter score;
+    private final ChunkedList<Comment> comments;
+    private volatile Question question;
+
+    protected Answer(User author) {
+        this.id = IDS.incrementAndGet();
+        this.author = author;
+        this.score = new ScoreCounter();
+        this.comments = new ChunkedList<>();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public User getAuthor() {
+        return author;
+    }
+
+    Question getQuestion() {
+        return question;
+    }
+
+    void setQuestion(Question question) {
+        this.question = question;
+    }
 
-    protected Answer() {
-        this.score = 0;
-        this.comments = new CopyOnWriteArrayList<>();
+    public List<Comment> getComments(int offset, int limit) {
+        return comments.page(offset, limit);
     }
 
     public abstract boolean isAccepted();
@@ -163,15 +1423,36 @@ public abstract class Answer implements Commentable, Votable {
     @Override
     public void addComment(Comment comment) {
         this.comments.add(comment);
+        if (question != null) question.bumpVersion();
     }
 
     @Override
     public void vote(Vote vote) {
-        this.score += vote.getValue();
+        if (score.add(vote.getValue())) {
+            ScoreFlusher.getInstance().schedule(this);
+        }
+        ReputationLedger.getInstance().recordVote(
+            author,
+            vote,
+            ReputationLedger.Reason.ANSWER_VOTE
+        );
     }
 
-    public int getScore() {
-        return score;
+    @Override
+    public void flushScore() {
+        final var previous = score.flush();
+        if (question != null && previous != score.getFlushed()) {
+            question.reindexAnswer(this, previous, score.getFlushed());
+            question.bumpVersion();
+        }
+    }
+
+    public long getScore() {
+        return score.get();
+    }
+
+    public long getFlushedScore() {
+        return score.getFlushed();
     }
 }
 
@@ -179,10 +1460,15 @@ public class TextAnswer extends Answer {
 
     private final String text;
 
-    public TextAnswer(String text) {
+    public TextAnswer(User author, String text) {
+        super(author);
         this.text = text;
     }
 
+    public String getText() {
+        return text;
+    }
+
     @Override
     public boolean isAccepted() {
         return false;
@@ -194,15 +1480,94 @@ public class AcceptedAnswer extends Answer {
     private Answer answer;
 
     public AcceptedAnswer(Answer answer) {
+        super(answer.getAuthor());
         this.answer = answer;
     }
 
+    public Answer getAnswer() {
+        return answer;
+    }
+
     @Override
     public boolean isAccepted() {
         return true;
     }
 }
 
+// Append-only list stored as a directory of fixed-size chunks. Appends
+// are O(1) and never copy elements; readers never lock and see a prefix
+// bounded by the size they read, so iteration is snapshot-safe.
+public class ChunkedList<T> implements Iterable<T> {
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Object[][] chunks;
+    private volatile int size;
+
+    public ChunkedList() {
+        this.chunks = new Object[1][];
+    }
+
+    public synchronized void add(T element) {
+        final var index = size;
+        final var chunk = index >>> CHUNK_SHIFT;
+        var directory = chunks;
+        if (chunk == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        if (directory[chunk] == null) directory[chunk] = new Object[CHUNK_SIZE];
+        directory[chunk][index & CHUNK_MASK] = element;
+        chunks = directory;
+        size = index + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elementAt(chunks, index);
+    }
+
+    public List<T> page(int offset, int limit) {
+        final var end = (int) Math.min(size, (long) offset + limit);
+        final var directory = chunks;
+        final var page = new ArrayList<T>(Math.max(0, end - offset));
+        for (var i = offset; i < end; i++) page.add(elementAt(directory, i));
+        return page;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final var end = size;
+        final var directory = chunks;
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public T next() {
+                if (next >= end) throw new NoSuchElementException();
+                return elementAt(directory, next++);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T elementAt(Object[][] directory, int index) {
+        return (T) directory[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+}
+
 public class Vote {
 
     private int value;
@@ -223,11 +1588,133 @@ public class Comment {
     public Comment(String text) {
         this.text = text;
     }
+
+    public String getText() {
+        return text;
+    }
+}
+
+public record Tag(String name) implements Comparable<Tag> {
+    @Override
+    public int compareTo(Tag other) {
+        return name.compareTo(other.name);
+    }
 }
 
-public class Tag {
+public class ReputationLedger {
+
+    private static class HOLDER {
+
+        private static final ReputationLedger INSTANCE = new ReputationLedger(
+            Duration.ofMillis(500),
+            200
+        );
+    }
+
+    public static ReputationLedger getInstance() {
+        return HOLDER.INSTANCE;
+    }
+
+    private final int dailyVoteCap;
+    private final Queue<Event> events;
+    private final Map<Long, Account> accounts;
+    private final ConcurrentSkipListMap<ScoreKey, User> leaderboard;
+    private final ScheduledExecutorService aggregator;
+
+    private ReputationLedger(Duration interval, int dailyVoteCap) {
+        this.dailyVoteCap = dailyVoteCap;
+        this.events = new ConcurrentLinkedQueue<>();
+        this.accounts = new HashMap<>();
+        this.leaderboard = new ConcurrentSkipListMap<>();
+        this.aggregator = Executors.newSingleThreadScheduledExecutor(task -> {
+            final var thread = new Thread(task, "reputation-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        aggregator.scheduleWithFixedDelay(
+            this::aggregate,
+            interval.toMillis(),
+            interval.toMillis(),
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    public void record(User user, int points, Reason reason) {
+        events.add(new Event(user, points, reason, LocalDate.now()));
+    }
+
+    public void recordVote(User author, Vote vote, Reason reason) {
+        if (author == null) return;
+        record(author, vote.getValue() > 0 ? 10 : -2, reason);
+    }
+
+    public List<User> getLeaderboard(int limit) {
+        return leaderboard.values().stream().limit(limit).toList();
+    }
+
+    // Runs on the aggregator thread only, which owns accounts outright.
+    private void aggregate() {
+        final var batches = new HashMap<User, List<Event>>();
+        for (Event event; (event = events.poll()) != null; ) {
+            batches
+                .computeIfAbsent(event.user(), u -> new ArrayList<>())
+                .add(event);
+        }
+        for (var batch : batches.entrySet()) {
+            final var user = batch.getKey();
+            final var account = accounts.computeIfAbsent(user.getId(), id ->
+                new Account()
+            );
+            final var previous = account.total;
+            for (var event : batch.getValue()) {
+                account.apply(event, dailyVoteCap);
+            }
+            if (account.total == previous) continue;
 
-    final String name;
+            leaderboard.remove(new ScoreKey(previous, user.getId()));
+            leaderboard.put(new ScoreKey(account.total, user.getId()), user);
+            user.getReputation().publish((int) account.total);
+        }
+    }
+
+    public static enum Reason {
+        QUESTION_VOTE,
+        ANSWER_VOTE,
+        ANSWER_ACCEPTED,
+        ADJUSTMENT,
+    }
+
+    private record Event(
+        User user,
+        int points,
+        Reason reason,
+        LocalDate day
+    ) {}
+
+    private static class Account {
+
+        private long total;
+        private LocalDate day;
+        private int votePointsToday;
+
+        // Only vote gains count against the daily cap; losses, accepted
+        // answers and manual adjustments always apply in full.
+        void apply(Event event, int dailyVoteCap) {
+            var points = event.points();
+            final var isVote =
+                event.reason() == Reason.QUESTION_VOTE ||
+                event.reason() == Reason.ANSWER_VOTE;
+            if (isVote && points > 0) {
+                if (!event.day().equals(day)) {
+                    day = event.day();
+                    votePointsToday = 0;
+                }
+                points = Math.min(points, dailyVoteCap - votePointsToday);
+                votePointsToday += points;
+            }
+            total += points;
+        }
+    }
 }
 
 public class Reputation {
@@ -250,6 +1737,10 @@ public class Reputation {
         this.points.addAndGet(-points);
     }
 
+    void publish(int points) {
+        this.points.set(points);
+    }
+
     public int getPoints() {
         return points.get();
     }